@@ -0,0 +1,29 @@
+#!/bin/sh
+# Mide ArbolAVLBenchmark con un hilo y con N hilos en la misma máquina y guarda ambos
+# resultados en results/. Se niega a medir si la máquina tiene menos de N procesadores,
+# porque entonces los hilos de JMH se turnan y la medición no muestra la contención.
+#
+# Uso: ./medir-hilos.sh [N]    (N predeterminado: los procesadores de la máquina)
+set -e
+cd "$(dirname "$0")"
+
+procesadores=$(nproc)
+hilos=${1:-$procesadores}
+if [ "$hilos" -lt 2 ]; then
+    echo "Se necesitan al menos 2 hilos para comparar, esta máquina tiene $procesadores procesadores" >&2
+    exit 1
+fi
+if [ "$procesadores" -lt "$hilos" ]; then
+    echo "Se pidieron $hilos hilos pero esta máquina tiene $procesadores procesadores" >&2
+    exit 1
+fi
+if [ ! -f target/benchmarks.jar ]; then
+    echo "Falta target/benchmarks.jar, ver README.md para armarlo" >&2
+    exit 1
+fi
+
+for t in 1 "$hilos"; do
+    nombre=arbolavl-$t-hilo$([ "$t" -gt 1 ] && echo s)
+    java -jar target/benchmarks.jar ArbolAVLBenchmark -t "$t" \
+        -rf json -rff "results/$nombre.json" -o "results/$nombre.txt"
+done
@@ -0,0 +1,142 @@
+/**
+ * @file ArbolAVLBenchmark.java
+ * @author 202030799 Manuel Rojas
+ * @brief Medición de búsquedas y modificaciones del ArbolAVL
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.mrojas.cartas.data_structures.ArbolAVL;
+import com.mrojas.cartas.models.Carta;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Medición de una mezcla de búsquedas y modificaciones sobre un mismo árbol compartido
+ * por todos los hilos, como ocurre con la baraja de una partida. Una modificación
+ * elimina una carta y, si salió del árbol, la vuelve a insertar; eliminar no quita una
+ * carta con dos hijos, en cuyo caso la modificación solo copia el camino. Así el árbol
+ * conserva sus cartas durante la medición, lo que se revisa al terminar cada iteración.
+ * Cada hilo modifica solo sus propias cartas, por lo que ningún otro hilo puede cambiar
+ * si una de ellas está en el árbol.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArbolAVLBenchmark {
+
+    /**
+     * Cantidad de cartas de la baraja
+     */
+    @Param({ "13", "26", "52" })
+    int cartas;
+
+    /**
+     * Porcentaje de operaciones que modifican el árbol: lectura 0, mixta 10, escritura 50
+     */
+    @Param({ "lectura", "mixta", "escritura" })
+    String mezcla;
+
+    ArbolAVL arbol;
+    Carta[] baraja;
+    int escrituras;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        baraja = Barajas.repartir(cartas, new SplittableRandom(13));
+        arbol = new ArbolAVL();
+        for (Carta carta : baraja) {
+            arbol.insertar(carta);
+        }
+        switch (mezcla) {
+            case "lectura":
+                escrituras = 0;
+                break;
+            case "mixta":
+                escrituras = 10;
+                break;
+            case "escritura":
+                escrituras = 50;
+                break;
+            default:
+                throw new IllegalArgumentException("La mezcla ".concat(mezcla).concat(" no existe"));
+        }
+        revisar();
+    }
+
+    /**
+     * Revisa que el árbol tenga exactamente las cartas de la baraja, si una modificación
+     * dejara una carta repetida o fuera del árbol la medición no sería sobre el mismo árbol
+     */
+    @TearDown(Level.Iteration)
+    public void revisar() {
+        if (arbol.getCantidad() != baraja.length || Long.bitCount(arbol.getMascara()) != baraja.length) {
+            throw new IllegalStateException("El árbol tiene " + arbol.getCantidad() + " nodos y "
+                    + Long.bitCount(arbol.getMascara()) + " cartas distintas, se esperaban " + baraja.length);
+        }
+    }
+
+    /**
+     * Estado de cada hilo, con su generador y las cartas que le toca modificar
+     */
+    @State(Scope.Thread)
+    public static class Hilo {
+        SplittableRandom aleatorio;
+        Carta[] propias;
+
+        @Setup(Level.Trial)
+        public void preparar(ArbolAVLBenchmark medicion, ThreadParams hilos) {
+            aleatorio = new SplittableRandom(hilos.getThreadIndex());
+            int cantidad = 0;
+            Carta[] todas = medicion.baraja;
+            for (int i = hilos.getThreadIndex(); i < todas.length; i += hilos.getThreadCount()) {
+                cantidad++;
+            }
+            propias = new Carta[cantidad];
+            for (int i = hilos.getThreadIndex(), j = 0; i < todas.length; i += hilos.getThreadCount()) {
+                propias[j++] = todas[i];
+            }
+        }
+    }
+
+    @Benchmark
+    public void operar(Hilo hilo, Blackhole agujero) {
+        if (hilo.aleatorio.nextInt(100) < escrituras && hilo.propias.length > 0) {
+            Carta carta = hilo.propias[hilo.aleatorio.nextInt(hilo.propias.length)];
+            arbol.eliminar(carta);
+            if (!arbol.contiene(carta)) {
+                arbol.insertar(carta);
+            }
+        } else {
+            agujero.consume(arbol.buscar(baraja[hilo.aleatorio.nextInt(baraja.length)]));
+        }
+    }
+
+    @Benchmark
+    public boolean contiene(Hilo hilo) {
+        return arbol.contiene(baraja[hilo.aleatorio.nextInt(baraja.length)]);
+    }
+}
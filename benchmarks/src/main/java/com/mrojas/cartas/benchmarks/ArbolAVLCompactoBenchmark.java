@@ -0,0 +1,89 @@
+/**
+ * @file ArbolAVLCompactoBenchmark.java
+ * @author 202030799 Manuel Rojas
+ * @brief Medición del ArbolAVLCompacto frente al ArbolAVL
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.mrojas.cartas.data_structures.ArbolAVL;
+import com.mrojas.cartas.data_structures.ArbolAVLCompacto;
+import com.mrojas.cartas.models.Carta;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Medición de las mismas operaciones sobre ArbolAVLCompacto y ArbolAVL: armar una baraja
+ * insertando sus cartas en el orden en que se repartieron y buscar cartas al azar. Con
+ * -prof gc se compara además la memoria que asigna cada uno al armar la baraja. Como
+ * ArbolAVLCompacto no es seguro para hilos cada hilo tiene sus propios árboles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArbolAVLCompactoBenchmark {
+
+    @Param({ "13", "26", "52" })
+    int cartas;
+
+    Carta[] baraja;
+    ArbolAVL arbol;
+    ArbolAVLCompacto compacto;
+    SplittableRandom aleatorio;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        baraja = Barajas.repartir(cartas, new SplittableRandom(13));
+        arbol = armarArbol();
+        compacto = armarCompacto();
+        aleatorio = new SplittableRandom(6);
+    }
+
+    @Benchmark
+    public ArbolAVL armarArbol() {
+        ArbolAVL nuevo = new ArbolAVL();
+        for (Carta carta : baraja) {
+            nuevo.insertar(carta);
+        }
+        return nuevo;
+    }
+
+    @Benchmark
+    public ArbolAVLCompacto armarCompacto() {
+        ArbolAVLCompacto nuevo = new ArbolAVLCompacto(baraja.length);
+        for (Carta carta : baraja) {
+            nuevo.insertar(carta);
+        }
+        return nuevo;
+    }
+
+    @Benchmark
+    public boolean contieneArbol() {
+        return arbol.contiene(Carta.desdeIndice(aleatorio.nextInt(Carta.TOTAL_CARTAS)));
+    }
+
+    @Benchmark
+    public boolean contieneCompacto() {
+        return compacto.contiene(Carta.desdeIndice(aleatorio.nextInt(Carta.TOTAL_CARTAS)));
+    }
+}
@@ -0,0 +1,46 @@
+/**
+ * @file Barajas.java
+ * @author 202030799 Manuel Rojas
+ * @brief Clase con utilidades para repartir barajas aleatorias en las mediciones
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.benchmarks;
+
+import java.util.SplittableRandom;
+
+import com.mrojas.cartas.models.Carta;
+
+/**
+ * Clase con utilidades para repartir barajas aleatorias, con la misma semilla se
+ * obtiene siempre la misma baraja para que las mediciones sean comparables
+ */
+public final class Barajas {
+
+    private Barajas() {
+    }
+
+    /**
+     * Método para repartir una baraja con cartas distintas tomadas al azar
+     * @param cantidad La cantidad de cartas de la baraja, entre 0 y 52
+     * @param aleatorio El generador con el que se mezclan las cartas
+     * @return Las cartas en el orden en que se repartieron
+     */
+    public static Carta[] repartir(int cantidad, SplittableRandom aleatorio) {
+        Carta[] mazo = new Carta[Carta.TOTAL_CARTAS];
+        for (int i = 0; i < mazo.length; i++) {
+            mazo[i] = Carta.desdeIndice(i);
+        }
+        for (int i = 0; i < cantidad; i++) {
+            int elegida = i + aleatorio.nextInt(mazo.length - i);
+            Carta carta = mazo[elegida];
+            mazo[elegida] = mazo[i];
+            mazo[i] = carta;
+        }
+        Carta[] baraja = new Carta[cantidad];
+        System.arraycopy(mazo, 0, baraja, 0, cantidad);
+        return baraja;
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * @file ColaBenchmark.java
+ * @author 202030799 Manuel Rojas
+ * @brief Medición de la Cola de cartas
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.mrojas.cartas.data_structures.Cola;
+import com.mrojas.cartas.models.Carta;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Medición de llenar una cola con una baraja y vaciarla en un arreglo, que es como la
+ * usa el árbol para obtener las cartas de un nivel
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColaBenchmark {
+
+    @Param({ "13", "26", "52" })
+    int cartas;
+
+    Carta[] baraja;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        baraja = Barajas.repartir(cartas, new SplittableRandom(13));
+    }
+
+    @Benchmark
+    public Carta[] llenarYVaciar() {
+        Cola cola = new Cola();
+        for (Carta carta : baraja) {
+            cola.insertar(carta);
+        }
+        return cola.toArray();
+    }
+}
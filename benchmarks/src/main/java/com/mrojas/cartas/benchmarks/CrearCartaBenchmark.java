@@ -0,0 +1,67 @@
+/**
+ * @file CrearCartaBenchmark.java
+ * @author 202030799 Manuel Rojas
+ * @brief Medición de la lectura de cartas desde su texto
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.mrojas.cartas.models.Carta;
+import com.mrojas.cartas.services.GameService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Medición de GameService.crearCarta, que se ejecuta por cada carta que llega en un body.
+ * Se recorren los textos de las 52 cartas y algunos textos inválidos para que la rama
+ * que se mide no sea siempre la misma.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CrearCartaBenchmark {
+
+    GameService servicio;
+    String[] validos;
+    String[] invalidos = { "", "1♥", "10", "11♠", "Z♦", "A♥x", "K?" };
+    int siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        servicio = new GameService();
+        validos = new String[Carta.TOTAL_CARTAS];
+        for (int i = 0; i < validos.length; i++) {
+            validos[i] = Carta.desdeIndice(i).toString();
+        }
+    }
+
+    @Benchmark
+    public Carta valida() {
+        siguiente = siguiente == validos.length - 1 ? 0 : siguiente + 1;
+        return servicio.crearCarta(validos[siguiente]);
+    }
+
+    @Benchmark
+    public Carta invalida() {
+        siguiente = siguiente >= invalidos.length - 1 ? 0 : siguiente + 1;
+        return servicio.crearCarta(invalidos[siguiente]);
+    }
+}
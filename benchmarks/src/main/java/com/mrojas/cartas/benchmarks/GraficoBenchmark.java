@@ -0,0 +1,74 @@
+/**
+ * @file GraficoBenchmark.java
+ * @author 202030799 Manuel Rojas
+ * @brief Medición del dibujo del árbol en DOT y SVG
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.mrojas.cartas.data_structures.ArbolAVL;
+import com.mrojas.cartas.data_structures.GraficoArbol;
+import com.mrojas.cartas.models.Carta;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Medición de lo que hacen /status-avltree.dot y /status-avltree.svg: calcular la
+ * disposición del árbol y escribir el documento. El documento se escribe en un Writer que
+ * descarta todo, por lo que se mide la generación del texto y no la salida.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraficoBenchmark {
+
+    @Param({ "13", "26", "52" })
+    int cartas;
+
+    ArbolAVL arbol;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        arbol = new ArbolAVL();
+        for (Carta carta : Barajas.repartir(cartas, new SplittableRandom(13))) {
+            arbol.insertar(carta);
+        }
+    }
+
+    @Benchmark
+    public GraficoArbol disponer() {
+        return arbol.getGrafico();
+    }
+
+    @Benchmark
+    public void escribirDot() throws IOException {
+        arbol.getGrafico().escribirDot(Writer.nullWriter());
+    }
+
+    @Benchmark
+    public void escribirSvg() throws IOException {
+        arbol.getGrafico().escribirSvg(Writer.nullWriter());
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * @file Histograma.java
+ * @author 202030799 Manuel Rojas
+ * @brief Clase para acumular latencias y obtener sus percentiles
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.benchmarks;
+
+/**
+ * Clase que acumula latencias en nanosegundos en cubetas de ancho logarítmico. Cada
+ * potencia de dos se divide en 32 cubetas, por lo que un percentil tiene un error menor
+ * al 3.2 % con un arreglo fijo de menos de 2 mil contadores, sin importar cuántas
+ * latencias se registren. No es seguro para hilos: cada hilo usa el suyo y al terminar
+ * se suman.
+ */
+public class Histograma {
+    /**
+     * Bits de cada potencia de dos que se usan para elegir la cubeta
+     */
+    private static final int PRECISION = 5;
+    private static final int SUBCUBETAS = 1 << PRECISION;
+    /**
+     * Los valores menores a este límite tienen una cubeta cada uno
+     */
+    private static final int LINEAL = 2 * SUBCUBETAS;
+
+    private final long[] cubetas = new long[LINEAL + (Long.SIZE - PRECISION - 1) * SUBCUBETAS];
+    private long cantidad;
+    private long suma;
+    private long maximo;
+
+    /**
+     * Método para registrar una latencia
+     * @param nanos La latencia en nanosegundos
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0L, nanos);
+        cubetas[getCubeta(valor)]++;
+        cantidad++;
+        suma += valor;
+        maximo = Math.max(maximo, valor);
+    }
+
+    /**
+     * Método para sumar las latencias de otro histograma a este
+     * @param otro El histograma a sumar
+     */
+    public void sumar(Histograma otro) {
+        for (int i = 0; i < cubetas.length; i++) {
+            cubetas[i] += otro.cubetas[i];
+        }
+        cantidad += otro.cantidad;
+        suma += otro.suma;
+        maximo = Math.max(maximo, otro.maximo);
+    }
+
+    /**
+     * Método para obtener un percentil de las latencias registradas
+     * @param percentil El percentil entre 0 y 100
+     * @return El límite inferior de la cubeta del percentil, 0 si no hay latencias
+     */
+    public long getPercentil(double percentil) {
+        if (cantidad == 0) {
+            return 0L;
+        }
+        long objetivo = Math.max(1L, (long) Math.ceil(cantidad * percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < cubetas.length; i++) {
+            acumulado += cubetas[i];
+            if (acumulado >= objetivo) {
+                return Math.min(getLimite(i), maximo);
+            }
+        }
+        return maximo;
+    }
+
+    /**
+     * Método para obtener la cantidad de latencias registradas
+     * @return La cantidad de latencias
+     */
+    public long getCantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Método para obtener el promedio de las latencias registradas
+     * @return El promedio en nanosegundos, 0 si no hay latencias
+     */
+    public double getPromedio() {
+        return cantidad == 0 ? 0.0 : (double) suma / cantidad;
+    }
+
+    /**
+     * Método para obtener la mayor latencia registrada
+     * @return La mayor latencia en nanosegundos
+     */
+    public long getMaximo() {
+        return maximo;
+    }
+
+    /**
+     * Método que obtiene la cubeta de un valor
+     * @param valor El valor no negativo
+     * @return La posición de la cubeta
+     */
+    private static int getCubeta(long valor) {
+        if (valor < LINEAL) {
+            return (int) valor;
+        }
+        int exponente = Long.SIZE - 1 - Long.numberOfLeadingZeros(valor);
+        int subcubeta = (int) (valor >>> (exponente - PRECISION)) & (SUBCUBETAS - 1);
+        return LINEAL + (exponente - PRECISION - 1) * SUBCUBETAS + subcubeta;
+    }
+
+    /**
+     * Método que obtiene el menor valor de una cubeta
+     * @param cubeta La posición de la cubeta
+     * @return El menor valor que cae en la cubeta
+     */
+    private static long getLimite(int cubeta) {
+        if (cubeta < LINEAL) {
+            return cubeta;
+        }
+        int exponente = (cubeta - LINEAL) / SUBCUBETAS + PRECISION + 1;
+        int subcubeta = (cubeta - LINEAL) % SUBCUBETAS;
+        return (1L << exponente) | ((long) subcubeta << (exponente - PRECISION));
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * @file RecorridoBenchmark.java
+ * @author 202030799 Manuel Rojas
+ * @brief Medición de los recorridos del ArbolAVL
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.benchmarks;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.mrojas.cartas.data_structures.ArbolAVL;
+import com.mrojas.cartas.data_structures.Recorrido;
+import com.mrojas.cartas.models.Carta;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Medición de los recorridos del árbol. El árbol guarda los recorridos que se le piden
+ * hasta que cambia, por lo que el recorrido completo se mide con el iterador perezoso,
+ * que siempre recorre los nodos, y por separado el costo de obtener el recorrido guardado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecorridoBenchmark {
+
+    @Param({ "13", "26", "52" })
+    int cartas;
+
+    @Param({ "IN_ORDER", "PRE_ORDER", "POST_ORDER" })
+    Recorrido recorrido;
+
+    ArbolAVL arbol;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        arbol = new ArbolAVL();
+        for (Carta carta : Barajas.repartir(cartas, new SplittableRandom(13))) {
+            arbol.insertar(carta);
+        }
+    }
+
+    @Benchmark
+    public void iterar(Blackhole agujero) {
+        Iterator<Carta> iterador = arbol.iterador(recorrido);
+        while (iterador.hasNext()) {
+            agujero.consume(iterador.next());
+        }
+    }
+
+    @Benchmark
+    public List<Carta> recorrerGuardado() {
+        return arbol.getRecorrido(recorrido);
+    }
+
+    @Benchmark
+    public Carta[][] niveles() {
+        return arbol.getNiveles();
+    }
+}
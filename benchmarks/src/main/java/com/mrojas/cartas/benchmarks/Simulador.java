@@ -0,0 +1,316 @@
+/**
+ * @file Simulador.java
+ * @author 202030799 Manuel Rojas
+ * @brief Simulador de partidas completas para medir el rendimiento del servicio
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.benchmarks;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+import com.mrojas.cartas.models.Carta;
+import com.mrojas.cartas.services.AlmacenPartidas;
+import com.mrojas.cartas.services.GameService;
+import com.mrojas.cartas.services.RenderService;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+/**
+ * Simulador que juega partidas completas contra GameService dentro del mismo proceso,
+ * sin HTTP. El servicio se arma con un contexto de Spring que solo tiene los servicios,
+ * igual que en el servidor. Cada partida reparte una baraja al azar y, mientras haya
+ * jugadas, consulta un recorrido del árbol, pide las jugadas válidas y elimina una al
+ * azar. Las partidas se reparten en un ForkJoinPool y al terminar se reportan las
+ * partidas por segundo, los percentiles de latencia de cada operación y la memoria
+ * asignada.
+ *
+ * Como un cliente del servidor, el simulador abandona cada partida al terminarla, y el
+ * almacén de partidas las desaloja a disco al pasar su límite. Esos archivos no se
+ * vuelven a leer, por lo que el almacén se configura para que los borre él mismo poco
+ * después de escribirlos, con la misma revisión que usa el servidor, y el disco no crece
+ * con la cantidad de partidas.
+ *
+ * Se ejecuta con:
+ * <pre>
+ * java -cp target/benchmarks.jar com.mrojas.cartas.benchmarks.Simulador --juegos=1000000 --cartas=52 --hilos=4
+ * </pre>
+ */
+public class Simulador {
+    /**
+     * Cantidad de partidas que juega seguidas un mismo hilo
+     */
+    private static final int LOTE = 256;
+    private static final String[] RECORRIDOS = { "inOrder", "preOrder", "postOrder" };
+
+    /**
+     * Operaciones que se miden, con el nombre de su ruta en la API
+     */
+    enum Operacion {
+        INICIO("start"), RECORRIDO("avltree"), JUGADAS("moves"), ELIMINACION("delete");
+
+        private final String ruta;
+
+        Operacion(String ruta) {
+            this.ruta = ruta;
+        }
+    }
+
+    /**
+     * Resultado de jugar un grupo de partidas, los resultados de cada hilo se suman al
+     * unir las tareas por lo que ningún contador se comparte entre hilos
+     */
+    static class Resultado {
+        final Histograma[] latencias = new Histograma[Operacion.values().length];
+        long partidas;
+        long vaciadas;
+        long asignados;
+        long sumidero;
+
+        Resultado() {
+            for (int i = 0; i < latencias.length; i++) {
+                latencias[i] = new Histograma();
+            }
+        }
+
+        Resultado sumar(Resultado otro) {
+            for (int i = 0; i < latencias.length; i++) {
+                latencias[i].sumar(otro.latencias[i]);
+            }
+            partidas += otro.partidas;
+            vaciadas += otro.vaciadas;
+            asignados += otro.asignados;
+            sumidero ^= otro.sumidero;
+            return this;
+        }
+    }
+
+    /**
+     * Tarea que juega un rango de partidas, lo divide a la mitad hasta llegar a un lote
+     */
+    class Lote extends RecursiveTask<Resultado> {
+        private final long desde;
+        private final long hasta;
+        private final SplittableRandom aleatorio;
+
+        Lote(long desde, long hasta, SplittableRandom aleatorio) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.aleatorio = aleatorio;
+        }
+
+        @Override
+        protected Resultado compute() {
+            if (hasta - desde > LOTE) {
+                long medio = (desde + hasta) >>> 1;
+                Lote izquierda = new Lote(desde, medio, aleatorio.split());
+                izquierda.fork();
+                Resultado derecha = new Lote(medio, hasta, aleatorio).compute();
+                return derecha.sumar(izquierda.join());
+            }
+            Resultado resultado = new Resultado();
+            long hilo = Thread.currentThread().getId();
+            long antes = getAsignados(hilo);
+            for (long i = desde; i < hasta; i++) {
+                jugar(aleatorio, resultado);
+            }
+            resultado.asignados = getAsignados(hilo) - antes;
+            return resultado;
+        }
+    }
+
+    private final GameService servicio;
+    private final int cartas;
+    private final com.sun.management.ThreadMXBean memoria;
+
+    /**
+     * Constructor del simulador
+     * @param servicio El servicio contra el que se juega
+     * @param cartas La cantidad de cartas de cada baraja
+     */
+    public Simulador(GameService servicio, int cartas) {
+        this.servicio = servicio;
+        this.cartas = cartas;
+        java.lang.management.ThreadMXBean hilos = ManagementFactory.getThreadMXBean();
+        memoria = hilos instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) hilos).isThreadAllocatedMemorySupported()
+                ? (com.sun.management.ThreadMXBean) hilos : null;
+    }
+
+    /**
+     * Método para jugar varias partidas en un pool
+     * @param pool El pool en el que se reparten las partidas
+     * @param juegos La cantidad de partidas a jugar
+     * @param semilla La semilla con la que se reparten las barajas
+     * @return El resultado de todas las partidas
+     */
+    public Resultado simular(ForkJoinPool pool, long juegos, long semilla) {
+        return pool.invoke(new Lote(0, juegos, new SplittableRandom(semilla)));
+    }
+
+    /**
+     * Método que juega una partida completa eligiendo jugadas al azar
+     * @param aleatorio El generador de la partida
+     * @param resultado El resultado en el que se registran las latencias
+     */
+    private void jugar(SplittableRandom aleatorio, Resultado resultado) {
+        Carta[] baraja = Barajas.repartir(cartas, aleatorio);
+        long tiempo = System.nanoTime();
+        String partida = servicio.start(baraja);
+        tiempo = registrar(resultado, Operacion.INICIO, tiempo);
+        while (true) {
+            Iterator<Carta> recorrido = servicio.getTransversalTree(partida, RECORRIDOS[aleatorio.nextInt(RECORRIDOS.length)]);
+            while (recorrido.hasNext()) {
+                resultado.sumidero += recorrido.next().getIndice();
+            }
+            tiempo = registrar(resultado, Operacion.RECORRIDO, tiempo);
+            Map<String, List<List<Carta>>> jugadas = servicio.getMoves(partida);
+            tiempo = registrar(resultado, Operacion.JUGADAS, tiempo);
+            List<List<Carta>> solas = jugadas.get("singles");
+            List<List<Carta>> pares = jugadas.get("pairs");
+            int total = solas.size() + pares.size();
+            if (total == 0) {
+                break;
+            }
+            int elegida = aleatorio.nextInt(total);
+            List<Carta> jugada = elegida < solas.size() ? solas.get(elegida) : pares.get(elegida - solas.size());
+            servicio.deleteCards(partida, jugada.get(0), jugada.size() > 1 ? jugada.get(1) : null);
+            tiempo = registrar(resultado, Operacion.ELIMINACION, tiempo);
+        }
+        if (servicio.getRemainingCards(partida) == 0) {
+            resultado.vaciadas++;
+        }
+        resultado.partidas++;
+    }
+
+    /**
+     * Método que registra la latencia de una operación
+     * @param resultado El resultado en el que se registra
+     * @param operacion La operación medida
+     * @param inicio El momento en que empezó la operación
+     * @return El momento en que terminó, que es el inicio de la siguiente operación
+     */
+    private static long registrar(Resultado resultado, Operacion operacion, long inicio) {
+        long fin = System.nanoTime();
+        resultado.latencias[operacion.ordinal()].registrar(fin - inicio);
+        return fin;
+    }
+
+    /**
+     * Método que obtiene la memoria asignada por un hilo desde que inició
+     * @param hilo El identificador del hilo
+     * @return Los bytes asignados, 0 si la JVM no lo permite medir
+     */
+    private long getAsignados(long hilo) {
+        return memoria == null ? 0L : memoria.getThreadAllocatedBytes(hilo);
+    }
+
+    /**
+     * Método que lee un argumento de la forma --nombre=valor
+     * @param argumentos Los argumentos del programa
+     * @param nombre El nombre del argumento
+     * @param predeterminado El valor si el argumento no se indica
+     * @return El valor del argumento
+     */
+    private static long leer(String[] argumentos, String nombre, long predeterminado) {
+        String prefijo = "--".concat(nombre).concat("=");
+        for (String argumento : argumentos) {
+            if (argumento.startsWith(prefijo)) {
+                return Long.parseLong(argumento.substring(prefijo.length()));
+            }
+        }
+        return predeterminado;
+    }
+
+    public static void main(String[] args) throws IOException {
+        long juegos = leer(args, "juegos", 1_000_000L);
+        int cartas = (int) leer(args, "cartas", Carta.TOTAL_CARTAS);
+        int hilos = (int) leer(args, "hilos", Runtime.getRuntime().availableProcessors());
+        long calentamiento = leer(args, "calentamiento", 20_000L);
+        long semilla = leer(args, "semilla", 13L);
+        long activas = leer(args, "activas", 10_000L);
+        long caducidad = leer(args, "caducidad", 1000L);
+
+        Path directorio = Files.createTempDirectory("cartas-simulador");
+        AnnotationConfigApplicationContext contexto = new AnnotationConfigApplicationContext();
+        contexto.getEnvironment().getPropertySources().addFirst(new MapPropertySource("simulador",
+                Map.of("cartas.sessions.spill-path", directorio.toString(), "cartas.sessions.max-active", activas,
+                        "cartas.sessions.spill-ttl-ms", caducidad, "cartas.sessions.sweep-interval-ms", caducidad)));
+        contexto.register(AlmacenPartidas.class, RenderService.class, GameService.class);
+        ForkJoinPool pool = new ForkJoinPool(hilos);
+        try {
+            contexto.refresh();
+            Simulador simulador = new Simulador(contexto.getBean(GameService.class), cartas);
+            simulador.simular(pool, calentamiento, semilla + 1);
+            long inicio = System.nanoTime();
+            Resultado resultado = simulador.simular(pool, juegos, semilla);
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            reportar(resultado, segundos, hilos, cartas);
+        } finally {
+            pool.shutdown();
+            contexto.close();
+            borrar(directorio);
+        }
+    }
+
+    /**
+     * Método que borra un directorio con todo su contenido
+     * @param directorio El directorio a borrar
+     * @throws IOException Si no se puede borrar algún archivo
+     */
+    private static void borrar(Path directorio) throws IOException {
+        try (Stream<Path> rutas = Files.walk(directorio)) {
+            for (Path ruta : (Iterable<Path>) rutas.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(ruta);
+            }
+        } catch (NoSuchFileException e) {
+            // Ya no existe
+        }
+    }
+
+    /**
+     * Método que imprime el reporte de la simulación
+     * @param resultado El resultado de todas las partidas
+     * @param segundos La duración de la simulación
+     * @param hilos La cantidad de hilos del pool
+     * @param cartas La cantidad de cartas de cada baraja
+     */
+    private static void reportar(Resultado resultado, double segundos, int hilos, int cartas) {
+        System.out.printf("Partidas: %d de %d cartas en %.2f s con %d hilos%n", resultado.partidas, cartas, segundos, hilos);
+        System.out.printf("Partidas por segundo: %.0f%n", resultado.partidas / segundos);
+        System.out.printf("Partidas vaciadas: %.2f %%%n", 100.0 * resultado.vaciadas / Math.max(1, resultado.partidas));
+        System.out.println();
+        System.out.printf("%-10s %12s %12s %10s %10s %10s %10s %10s %10s%n", "operacion", "cantidad", "ops/s",
+                "prom(us)", "p50(us)", "p90(us)", "p99(us)", "p99.9(us)", "max(us)");
+        for (Operacion operacion : Operacion.values()) {
+            Histograma latencias = resultado.latencias[operacion.ordinal()];
+            System.out.printf("%-10s %12d %12.0f %10.2f %10.2f %10.2f %10.2f %10.2f %10.2f%n", operacion.ruta,
+                    latencias.getCantidad(), latencias.getCantidad() / segundos, latencias.getPromedio() / 1e3,
+                    latencias.getPercentil(50) / 1e3, latencias.getPercentil(90) / 1e3,
+                    latencias.getPercentil(99) / 1e3, latencias.getPercentil(99.9) / 1e3, latencias.getMaximo() / 1e3);
+        }
+        System.out.println();
+        if (resultado.asignados == 0) {
+            System.out.println("Memoria asignada: la JVM no permite medirla");
+        } else {
+            System.out.printf("Memoria asignada: %.0f bytes por partida, %.1f MB/s%n",
+                    (double) resultado.asignados / Math.max(1, resultado.partidas),
+                    resultado.asignados / segundos / (1024 * 1024));
+        }
+    }
+}
@@ -10,12 +10,22 @@
 package com.mrojas.cartas.controllers;
 
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
 
 import com.mrojas.cartas.errors.AdditionCardException;
+import com.mrojas.cartas.errors.BatchException;
 import com.mrojas.cartas.errors.CardNotFoundException;
 import com.mrojas.cartas.errors.DuplicateCardException;
+import com.mrojas.cartas.errors.GameNotFoundException;
+import com.mrojas.cartas.errors.ImageNotFoundException;
 import com.mrojas.cartas.errors.ParentNodeException;
+import com.mrojas.cartas.errors.RenderBusyException;
+import com.mrojas.cartas.errors.RenderException;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -43,6 +53,65 @@ public class ErrorHandlerController {
         //return "error/add";
     }
 
+    /**
+     * Método el cual es invocado cuando se hace referencia a una partida que no existe
+     * @param ex El error encontrado
+     * @param model El body del request
+     */
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    @ExceptionHandler(GameNotFoundException.class)
+    public void gameNotFoundError(GameNotFoundException ex, Model model){
+        model.addAttribute("error", "Error al buscar partida");
+        model.addAttribute("message", ex.getMessage());
+        model.addAttribute("status", HttpStatus.NOT_FOUND.value());
+        model.addAttribute("timestamp", new Date());
+    }
+
+    /**
+     * Método el cual es invocado cuando se solicita una imagen del arbol que no está generada
+     * @param ex El error encontrado
+     * @param model El body del request
+     */
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    @ExceptionHandler(ImageNotFoundException.class)
+    public void imageNotFoundError(ImageNotFoundException ex, Model model){
+        model.addAttribute("error", "Error al buscar imagen");
+        model.addAttribute("message", ex.getMessage());
+        model.addAttribute("status", HttpStatus.NOT_FOUND.value());
+        model.addAttribute("timestamp", new Date());
+    }
+
+    /**
+     * Método el cual es invocado cuando el dibujo de una imagen del arbol falla
+     * @param ex El error encontrado
+     * @param model El body del request
+     */
+    @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+    @ExceptionHandler(RenderException.class)
+    public void renderError(RenderException ex, Model model){
+        model.addAttribute("error", "Error al dibujar imagen");
+        model.addAttribute("message", ex.getMessage());
+        model.addAttribute("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
+        model.addAttribute("timestamp", new Date());
+    }
+
+    /**
+     * Método el cual es invocado cuando una imagen del arbol no termina de dibujarse a tiempo,
+     * indica al cliente cuándo volver a pedirla
+     * @param ex El error encontrado
+     * @param model El body del request
+     * @param response La respuesta en la que se indica el reintento
+     */
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(RenderBusyException.class)
+    public void renderBusyError(RenderBusyException ex, Model model, HttpServletResponse response){
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(ex.getReintento()));
+        model.addAttribute("error", "Error al dibujar imagen");
+        model.addAttribute("message", ex.getMessage());
+        model.addAttribute("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        model.addAttribute("timestamp", new Date());
+    }
+
     /**
      * Método el cual es invocado cuando ocurre un error de eliminación de cartas por suma
      * @param ex El error encontrado
@@ -88,6 +157,24 @@ public class ErrorHandlerController {
         //return "error/add";
     }
 
+    /**
+     * Método el cual es invocado cuando una jugada de un lote falla y el lote se descarta
+     * @param ex El error encontrado
+     * @return El body con el resultado de cada jugada del lote
+     */
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(BatchException.class)
+    public Map<String, Object> batchError(BatchException ex){
+        Map<String, Object> model = new LinkedHashMap<>();
+        model.put("error", "Error al aplicar lote de jugadas");
+        model.put("message", ex.getMessage());
+        model.put("status", HttpStatus.CONFLICT.value());
+        model.put("timestamp", new Date());
+        model.put("applied", false);
+        model.put("results", ex.getResultados());
+        return model;
+    }
+
     /**
      * Método el cual es invocado cuando ocurre un error de ejecución no definido
      * @param ex El error encontrado
@@ -9,19 +9,33 @@
  */
 package com.mrojas.cartas.controllers;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import com.mrojas.cartas.errors.AdditionCardException;
-import com.mrojas.cartas.errors.CardNotFoundException;
-import com.mrojas.cartas.errors.DuplicateCardException;
-import com.mrojas.cartas.errors.ParentNodeException;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mrojas.cartas.data_structures.GraficoArbol;
+import com.mrojas.cartas.data_structures.Resolutor;
 import com.mrojas.cartas.models.Carta;
+import com.mrojas.cartas.models.Operacion;
 import com.mrojas.cartas.services.GameService;
+import com.mrojas.cartas.services.RenderService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
@@ -45,12 +59,19 @@ public class GameController {
     GameService service;
 
     /**
-     * Metodo para controlar el inicio de la aplicación
+     * Mapeador de JSON de la aplicación, se usa para escribir respuestas directamente
+     */
+    @Autowired
+    ObjectMapper mapper;
+
+    /**
+     * Metodo para controlar el inicio de una nueva partida
      * @param model body del request con las cartas iniciales para iniciar el juego
+     * @return Retorna un body con el identificador de la partida bajo el parametro 'game'
      */
     @ResponseStatus(HttpStatus.OK)
     @PostMapping("/start")
-    public void start(@RequestBody Map<String, Object> model) {
+    public Map<String, String> start(@RequestBody Map<String, Object> model) {
         Carta[] cartas = new Carta[model.size()];
         for (int i = 0; i < model.size(); i++) {
             cartas[i] = service.crearCarta((String) model.get(Integer.toString(i)));
@@ -60,113 +81,349 @@ public class GameController {
                 throw new NullPointerException("Hay cartas a ingresar que no cumplen con el formato correcto");
             }
         }
-        service.start(cartas);
+        Map<String, String> partida = new HashMap<>();
+        partida.put("game", service.start(cartas));
+        return partida;
+    }
+
+    /**
+     * Método que controla la exportación de la baraja de una partida en formato binario,
+     * un byte por carta con su índice en pre orden
+     * @param game El identificador de la partida
+     * @param response La respuesta en la que se escriben los bytes
+     * @throws IOException Si no se puede escribir la respuesta
+     */
+    @GetMapping("/export")
+    public void exportGame(@RequestParam("game") String game, HttpServletResponse response) throws IOException {
+        byte[] preOrden = service.exportGame(game);
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setContentLength(preOrden.length);
+        response.getOutputStream().write(preOrden);
+    }
+
+    /**
+     * Método que controla el inicio de una partida a partir de una baraja exportada, el
+     * arbol conserva exactamente la forma que tenía al exportarse
+     * @param preOrden body del request con los bytes obtenidos de /export
+     * @return Retorna un body con el identificador de la partida bajo el parametro 'game'
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Map<String, String> importGame(@RequestBody byte[] preOrden) {
+        Map<String, String> partida = new HashMap<>();
+        partida.put("game", service.importGame(preOrden));
+        return partida;
     }
 
     /**
      * Método para controlar la inserción de cartas en el juego
+     * @param game El identificador de la partida
      * @param model body del request que contiene la carta a insertar en el arbol bajo el parametro 'insert'
      */
     @ResponseStatus(HttpStatus.OK)
     @PostMapping("/add")
-    public void add(@RequestBody Map<String, Object> model) {
+    public void add(@RequestParam("game") String game, @RequestBody Map<String, Object> model) {
         Carta carta = service.crearCarta((String) model.get("insert"));
-        if (service.containsCard(carta)) {
-            throw new DuplicateCardException(carta.toString());
-        }
-        service.addCard(carta);
+        service.addCard(game, carta);
     }
 
     /**
      * Método que controla la eliminación de cartas en el juego
+     * @param game El identificador de la partida
      * @param model body del request que contiene las cartas a eliminar en el arbol bajo el parametro 'delete_1' o 'delete_2'
      */
     @ResponseStatus(HttpStatus.OK)
     @DeleteMapping("/delete")
-    public void delete(@RequestBody Map<String, Object> model) {
+    public void delete(@RequestParam("game") String game, @RequestBody Map<String, Object> model) {
         Carta carta1 = service.crearCarta((String) model.get("delete_1"));
         Carta carta2 = service.crearCarta((String) model.get("delete_2"));
+        service.deleteCards(game, carta1, carta2);
+    }
 
-        if (!service.containsCard(carta1)) {
-            throw new CardNotFoundException(carta1.toString());
+    /**
+     * Método que controla la aplicación de un lote de jugadas, todas se aplican o ninguna
+     * @param game El identificador de la partida
+     * @param model body del request con las jugadas en orden bajo el parametro 'operations', cada
+     * jugada usa los mismos parametros que /add ('insert') o /delete ('delete_1' y 'delete_2')
+     * @return Retorna un body con el resultado de cada jugada bajo el parametro 'results'
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @PostMapping("/batch")
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> batch(@RequestParam("game") String game, @RequestBody Map<String, Object> model) {
+        List<Map<String, Object>> jugadas = (List<Map<String, Object>>) model.get("operations");
+        if (jugadas == null) {
+            throw new NullPointerException("El lote no contiene el parametro operations");
         }
-
-        if (carta2 == null) {
-            if (service.isParentCard(carta1)) {
-                throw new ParentNodeException(carta1.toString());
+        List<Operacion> operaciones = new ArrayList<>(jugadas.size());
+        for (Map<String, Object> jugada : jugadas) {
+            Operacion operacion;
+            if (jugada.containsKey("insert")) {
+                operacion = Operacion.insertar(service.crearCarta((String) jugada.get("insert")));
+            } else {
+                operacion = Operacion.eliminar(service.crearCarta((String) jugada.get("delete_1")),
+                        service.crearCarta((String) jugada.get("delete_2")));
             }
-
-            if (carta1.getValor() != 13) {
-                throw new AdditionCardException(carta1.toString());
-            }
-
-            service.deleteCard(carta1);
-        } else {
-            if (!service.containsCard(carta2)) {
-                throw new CardNotFoundException(carta2.toString());
-            }
-            if (service.isParentCard(carta1)) {
-                throw new ParentNodeException(carta1.toString());
-            }
-            if (service.isParentCard(carta2)) {
-                throw new ParentNodeException(carta2.toString());
+            if (operacion.getCarta1() == null || (jugada.get("delete_2") != null && operacion.getCarta2() == null)) {
+                throw new NullPointerException("Hay jugadas cuyas cartas no cumplen con el formato correcto");
             }
-            if ((carta1.getValor() + carta2.getValor()) != 13) {
-                throw new AdditionCardException(carta1.toString(), carta2.toString());
-            }
-
-            service.deleteCard(carta1);
-            service.deleteCard(carta2);
+            operaciones.add(operacion);
         }
+        Map<String, Object> resultado = new HashMap<>();
+        resultado.put("applied", true);
+        resultado.put("results", service.applyBatch(game, operaciones));
+        return resultado;
     }
 
     /**
-     * Método que controla la devolución del status del arbol
+     * Método que controla la devolución del status del arbol, la imagen se genera en segundo
+     * plano y su ruta depende de la forma del arbol, por lo que es la misma mientras el
+     * arbol no cambie
+     * @param game El identificador de la partida
      * @param host el host bajo el cual se encuentra alojado la app
      * @return Retorna un body en el cual va el path de la imagen con el estatus del arbol
      */
     @ResponseStatus(HttpStatus.OK)
     @GetMapping("/status-avltree")
-    public Map<String, String> getStatus(@RequestHeader String host) {
+    public Map<String, String> getStatus(@RequestParam("game") String game, @RequestHeader String host) {
         Map<String, String> model = new HashMap<>();
-        String path = "src//main//resources//static/images/status.jpg";
-        service.getStatusTree(path);
-        model.put("path", "http://".concat(host).concat("/images/status.jpg"));
+        String imagen = service.getStatusTree(game).concat(".").concat(RenderService.FORMATO);
+        model.put("path", "http://".concat(host).concat("/Game/status-image/").concat(imagen));
+        return model;
+    }
+
+    /**
+     * Método que controla la devolución de la imagen con el status del arbol, la ruta
+     * contiene el arbol completo por lo que su imagen nunca cambia y se permite guardarla
+     * en caché
+     * @param image La clave de la imagen
+     * @param response La respuesta en la que se escribe la imagen
+     * @throws IOException Si no se puede escribir la respuesta
+     */
+    @GetMapping("/status-image/{image}.jpg")
+    public void getStatusImage(@PathVariable("image") String image, HttpServletResponse response) throws IOException {
+        byte[] imagen = service.getStatusImage(image);
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+        response.setContentLength(imagen.length);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+        response.getOutputStream().write(imagen);
+    }
+
+    /**
+     * Método que controla la devolución del código de graphviz del arbol, se escribe
+     * directamente en la respuesta sin pasar por archivos
+     * @param game El identificador de la partida
+     * @param response La respuesta en la que se escribe el código
+     * @throws IOException Si no se puede escribir la respuesta
+     */
+    @GetMapping("/status-avltree.dot")
+    public void getStatusDot(@RequestParam("game") String game, HttpServletResponse response) throws IOException {
+        GraficoArbol grafico = service.getStatusGraph(game);
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType("text/vnd.graphviz");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        grafico.escribirDot(response.getWriter());
+    }
+
+    /**
+     * Método que controla la devolución del arbol como SVG, se escribe directamente en
+     * la respuesta sin pasar por archivos
+     * @param game El identificador de la partida
+     * @param response La respuesta en la que se escribe el documento
+     * @throws IOException Si no se puede escribir la respuesta
+     */
+    @GetMapping("/status-avltree.svg")
+    public void getStatusSvg(@RequestParam("game") String game, HttpServletResponse response) throws IOException {
+        GraficoArbol grafico = service.getStatusGraph(game);
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType("image/svg+xml");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        grafico.escribirSvg(response.getWriter());
+    }
+
+    /**
+     * Método que controla la devolución de la cantidad de cartas que quedan en el juego
+     * @param game El identificador de la partida
+     * @return Retorna un body con la cantidad de cartas bajo el parametro 'remaining'
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping("/remaining-cards")
+    public Map<String, Integer> getRemainingCards(@RequestParam("game") String game) {
+        Map<String, Integer> model = new HashMap<>();
+        model.put("remaining", service.getRemainingCards(game));
         return model;
     }
 
     /**
      * Método que controla la devolución de cartas por nivel del arbol
+     * @param game El identificador de la partida
      * @param level El nivel del cual se quieren saber las cartas del arbol, comenzando del 1 en la raiz
-     * @return Retorna un body con las cartas en ese nivel de izquierda a derecha, numeradas empezando desde el 0.
+     * @param response La respuesta en la que se escribe un arreglo JSON con las cartas en ese nivel de izquierda a derecha
+     * @throws IOException si ocurre un error al escribir la respuesta
      */
     @ResponseStatus(HttpStatus.OK)
     @GetMapping("/get-level")
-    public Map<Integer, String> getLevel(@RequestParam("level") Integer level) {
-        if (level < 1 || (level-1) > service.getTreeHeight() ) {
+    public void getLevel(@RequestParam("game") String game, @RequestParam("level") Integer level, HttpServletResponse response) throws IOException {
+        if (level < 1 || (level-1) > service.getTreeHeight(game) ) {
             throw new ArrayIndexOutOfBoundsException("El nivel del arbol debe ser positivo mayor a 0");
         }
-        Map<Integer, String> nivel = new HashMap<>();
-        Carta[] cartas = service.getLevelTree(level-1);
-        for (int i = 0; i < cartas.length; i++) {
-            nivel.put(i, cartas[i].toString());
+        escribirCartas(Arrays.asList(service.getLevelTree(game, level-1)).iterator(), response);
+    }
+
+    /**
+     * Método que controla la devolución de las cartas de todos los niveles del arbol
+     * @param game El identificador de la partida
+     * @param response La respuesta en la que se escribe un arreglo JSON con un arreglo de cartas por nivel, comenzando por la raiz
+     * @throws IOException si ocurre un error al escribir la respuesta
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping("/levels")
+    public void getLevels(@RequestParam("game") String game, HttpServletResponse response) throws IOException {
+        Carta[][] niveles = service.getLevelsTree(game);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator json = mapper.getFactory().createGenerator(response.getOutputStream())) {
+            json.writeStartArray();
+            for (Carta[] nivel : niveles) {
+                json.writeStartArray();
+                for (Carta carta : nivel) {
+                    json.writeString(carta.toString());
+                }
+                json.writeEndArray();
+            }
+            json.writeEndArray();
         }
-        return nivel;
     }
 
     /**
      * Método que controla la devolución de los diferentes recorridos del arbol
+     * @param game El identificador de la partida
      * @param transversal El tipo de recorrido que realizará el arbol
-     * @return Retorna el recorrido solicitado en el body
+     * @param offset La posición del recorrido desde la cual se devuelven cartas, por defecto 0
+     * @param limit La cantidad máxima de cartas a devolver, por defecto todas
+     * @param response La respuesta en la que se escribe un arreglo JSON con el recorrido solicitado
+     * @throws IOException si ocurre un error al escribir la respuesta
      */
     @ResponseStatus(HttpStatus.OK)
     @GetMapping("/avltree")
-    public Map<Integer, String> getTransversal(@RequestParam("transversal") String transversal) {
-        Map<Integer, String> recorrido = new HashMap<>();
-        Carta[] cartas = service.getTransversalTree(transversal);
-        for (int i = 0; i < cartas.length; i++) {
-            recorrido.put(i, cartas[i].toString());
+    public void getTransversal(@RequestParam("game") String game, @RequestParam("transversal") String transversal,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", required = false) Integer limit, HttpServletResponse response) throws IOException {
+        escribirCartas(service.getTransversalTree(game, transversal, offset, limit == null ? Integer.MAX_VALUE : limit), response);
+    }
+
+    /**
+     * Método que controla la devolución de las jugadas de eliminación válidas
+     * @param game El identificador de la partida
+     * @param response La respuesta en la que se escribe un objeto JSON con las jugadas de una carta
+     * bajo 'singles' y las de dos cartas bajo 'pairs', cada jugada es un arreglo de cartas
+     * @throws IOException si ocurre un error al escribir la respuesta
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping("/moves")
+    public void getMoves(@RequestParam("game") String game, HttpServletResponse response) throws IOException {
+        Map<String, List<List<Carta>>> jugadas = service.getMoves(game);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator json = mapper.getFactory().createGenerator(response.getOutputStream())) {
+            json.writeStartObject();
+            for (Map.Entry<String, List<List<Carta>>> grupo : jugadas.entrySet()) {
+                json.writeArrayFieldStart(grupo.getKey());
+                for (List<Carta> jugada : grupo.getValue()) {
+                    json.writeStartArray();
+                    for (Carta carta : jugada) {
+                        json.writeString(carta.toString());
+                    }
+                    json.writeEndArray();
+                }
+                json.writeEndArray();
+            }
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Método que controla la búsqueda de una secuencia de jugadas que vacíe la baraja
+     * @param game El identificador de la partida
+     * @param budget La cantidad máxima de estados a explorar, por defecto un millón y como máximo
+     * GameService.MAXIMO_EXPLORADOS; una cantidad mayor se rechaza con 400
+     * @param response La respuesta en la que se escribe un objeto JSON con 'solvable' (null si se
+     * agotó la cantidad de estados o el tiempo antes de decidir), 'explored' y las jugadas en orden
+     * bajo 'moves'
+     * @throws IOException si ocurre un error al escribir la respuesta
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping("/solve")
+    public void solve(@RequestParam("game") String game,
+            @RequestParam(value = "budget", defaultValue = "1000000") long budget, HttpServletResponse response) throws IOException {
+        Resolutor.Solucion solucion = service.solve(game, budget);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator json = mapper.getFactory().createGenerator(response.getOutputStream())) {
+            json.writeStartObject();
+            json.writeFieldName("solvable");
+            switch (solucion.getVeredicto()) {
+                case RESOLUBLE -> json.writeBoolean(true);
+                case IRRESOLUBLE -> json.writeBoolean(false);
+                case DESCONOCIDO -> json.writeNull();
+            }
+            json.writeNumberField("explored", solucion.getExplorados());
+            json.writeArrayFieldStart("moves");
+            for (Carta[] jugada : solucion.getJugadas()) {
+                json.writeStartArray();
+                for (Carta carta : jugada) {
+                    json.writeString(carta.toString());
+                }
+                json.writeEndArray();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Método que controla la devolución de las cartas cuyo total se encuentra en un rango
+     * @param game El identificador de la partida
+     * @param min El menor total del rango, incluido, por defecto 0
+     * @param max El mayor total del rango, incluido, por defecto sin límite
+     * @param response La respuesta en la que se escribe un arreglo JSON con las cartas ordenadas por total
+     * @throws IOException si ocurre un error al escribir la respuesta
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping("/range")
+    public void getRange(@RequestParam("game") String game,
+            @RequestParam(value = "min", defaultValue = "0") int min,
+            @RequestParam(value = "max", defaultValue = "" + Integer.MAX_VALUE) int max, HttpServletResponse response) throws IOException {
+        escribirCartas(service.getRangeTree(game, min, max), response);
+    }
+
+    /**
+     * Método que controla la devolución de las cartas de un tipo
+     * @param game El identificador de la partida
+     * @param suit El tipo de carta, ya sea su símbolo o su nombre
+     * @param response La respuesta en la que se escribe un arreglo JSON con las cartas ordenadas por valor
+     * @throws IOException si ocurre un error al escribir la respuesta
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping("/suit")
+    public void getSuit(@RequestParam("game") String game, @RequestParam("suit") String suit, HttpServletResponse response) throws IOException {
+        escribirCartas(service.getSuitTree(game, suit), response);
+    }
+
+    /**
+     * Método para escribir cartas como un arreglo JSON directamente en la respuesta, a
+     * medida que se van obteniendo y sin armar un mapa intermedio
+     * @param cartas Las cartas a escribir
+     * @param response La respuesta en la que se escriben las cartas
+     * @throws IOException si ocurre un error al escribir la respuesta
+     */
+    private void escribirCartas(Iterator<Carta> cartas, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator json = mapper.getFactory().createGenerator(response.getOutputStream())) {
+            json.writeStartArray();
+            while (cartas.hasNext()) {
+                json.writeString(cartas.next().toString());
+            }
+            json.writeEndArray();
         }
-        return recorrido;
     }
 }
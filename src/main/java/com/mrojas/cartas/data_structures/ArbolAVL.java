@@ -10,23 +10,256 @@
 package com.mrojas.cartas.data_structures;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.mrojas.cartas.models.*;
 
 /**
- * Clase para manejar cartas en una estructura de datos AVL
+ * Clase para manejar cartas en una estructura de datos AVL persistente. Los nodos
+ * son inmutables: insertar y eliminar copian solo el camino desde la raíz hasta el
+ * nodo afectado y publican la nueva raíz de forma atómica, por lo que cualquier
+ * lectura trabaja sobre una versión consistente del árbol sin necesidad de bloqueos.
+ * Cada versión lleva un contador de modificaciones y guarda los recorridos y niveles
+ * que se le piden, que se reutilizan hasta que el árbol vuelve a cambiar.
  */
-public class ArbolAVL {
+public class ArbolAVL implements Iterable<Carta> {
+    /**
+     * Bits del resultado de consultarHojas, indican si cada carta está en el árbol y si
+     * es una hoja
+     */
+    public static final int PRESENTE_1 = 1;
+    public static final int HOJA_1 = 2;
+    public static final int PRESENTE_2 = 4;
+    public static final int HOJA_2 = 8;
+
+    private final AtomicReference<Estado> estado;
+
+    /**
+     * Constructor de un árbol vacío
+     */
+    public ArbolAVL() {
+        this(new Estado(null, 0));
+    }
+
+    /**
+     * Constructor de un árbol a partir de una versión ya existente
+     * 
+     * @param estado La versión que tendrá el árbol
+     */
+    private ArbolAVL(Estado estado) {
+        this.estado = new AtomicReference<>(estado);
+    }
+
+    /**
+     * Método para construir un árbol perfectamente balanceado a partir de cartas
+     * ordenadas de forma estrictamente ascendente por su total. El árbol se arma de
+     * abajo hacia arriba en O(n), sin pasar por insertar ni realizar rotaciones.
+     * 
+     * @param ordenadas Las cartas ordenadas por total y sin repetir
+     * @return Un árbol con todas las cartas indicadas
+     */
+    public static ArbolAVL construir(Carta[] ordenadas) {
+        return new ArbolAVL(new Estado(construir(ordenadas, 0, ordenadas.length - 1), 0));
+    }
+
+    /**
+     * Método recursivo para construir el subárbol balanceado de un rango de cartas
+     * ordenadas, la carta de en medio queda como raíz del subárbol
+     * 
+     * @param ordenadas Las cartas ordenadas por total
+     * @param inicio    La primera posición del rango
+     * @param fin       La última posición del rango
+     * @return La raíz del subárbol, null si el rango está vacío
+     */
+    private static Nodo construir(Carta[] ordenadas, int inicio, int fin) {
+        if (inicio > fin) {
+            return null;
+        }
+        int medio = (inicio + fin) >>> 1;
+        return new Nodo(ordenadas[medio], construir(ordenadas, inicio, medio - 1), construir(ordenadas, medio + 1, fin));
+    }
 
-    private Nodo raiz;
+    /**
+     * Método para exportar el árbol en un byte por carta con el índice de cada carta en
+     * pre orden. Como las cartas no se repiten, el pre orden determina la forma exacta
+     * del árbol.
+     *
+     * @return Los índices de las cartas en pre orden
+     */
+    public byte[] exportar() {
+        Nodo raiz = getRaiz();
+        byte[] preOrden = new byte[Nodo.tamano(raiz)];
+        exportar(raiz, preOrden, 0);
+        return preOrden;
+    }
+
+    /**
+     * Método recursivo para escribir el pre orden de un subárbol
+     *
+     * @param nodo     La raíz del subárbol
+     * @param preOrden El arreglo en el que se escriben los índices
+     * @param posicion La posición en la que se escribe la raíz del subárbol
+     * @return La posición siguiente al último índice escrito
+     */
+    private static int exportar(Nodo nodo, byte[] preOrden, int posicion) {
+        if (nodo == null) {
+            return posicion;
+        }
+        preOrden[posicion] = (byte) nodo.dato.getIndice();
+        return exportar(nodo.derecha, preOrden, exportar(nodo.izquierda, preOrden, posicion + 1));
+    }
 
     /**
-     * Método para graficar el arbol avl
+     * Método para reconstruir un árbol exportado con exportar. Cada índice se lee una sola
+     * vez y se ubica con los límites de su subárbol, por lo que el árbol se arma en O(n)
+     * sin pasar por insertar ni realizar rotaciones.
+     *
+     * @param preOrden Los índices de las cartas en pre orden
+     * @return El árbol con la misma forma que el exportado
+     * @throws IllegalArgumentException si los índices no son el pre orden de un árbol AVL
+     *                                  de cartas sin repetir
+     */
+    public static ArbolAVL importar(byte[] preOrden) {
+        int[] posicion = { 0 };
+        Nodo raiz = importar(preOrden, posicion, -1, Carta.TOTAL_CARTAS);
+        if (posicion[0] != preOrden.length) {
+            throw new IllegalArgumentException("El indice " + preOrden[posicion[0]] + " en la posicion "
+                    + posicion[0] + " no corresponde a un pre orden valido");
+        }
+        return new ArbolAVL(new Estado(raiz, 0));
+    }
+
+    /**
+     * Método recursivo para reconstruir el subárbol cuyos índices están entre dos límites,
+     * si el siguiente índice queda fuera de los límites el subárbol está vacío
+     *
+     * @param preOrden Los índices de las cartas en pre orden
+     * @param posicion La posición del siguiente índice a leer, se avanza al leerlo
+     * @param minimo   El límite inferior del subárbol, excluido
+     * @param maximo   El límite superior del subárbol, excluido
+     * @return La raíz del subárbol
+     */
+    private static Nodo importar(byte[] preOrden, int[] posicion, int minimo, int maximo) {
+        if (posicion[0] == preOrden.length) {
+            return null;
+        }
+        int indice = preOrden[posicion[0]];
+        if (indice <= minimo || indice >= maximo) {
+            return null;
+        }
+        posicion[0]++;
+        Nodo izquierda = importar(preOrden, posicion, minimo, indice);
+        Nodo derecha = importar(preOrden, posicion, indice, maximo);
+        if (Math.abs(Nodo.altura(izquierda) - Nodo.altura(derecha)) > 1) {
+            throw new IllegalArgumentException("El subarbol de la carta " + Carta.desdeIndice(indice)
+                    + " no esta balanceado");
+        }
+        return new Nodo(Carta.desdeIndice(indice), izquierda, derecha);
+    }
+
+    /**
+     * Método para obtener una instantánea del árbol. Como los nodos no cambian, la
+     * copia se obtiene en O(1) compartiendo la raíz actual y las modificaciones
+     * posteriores sobre cualquiera de los dos árboles no afectan al otro.
+     * 
+     * @return Un árbol con el contenido actual de este árbol
+     */
+    public ArbolAVL instantanea() {
+        return new ArbolAVL(estado.get());
+    }
+
+    /**
+     * Método para reemplazar el contenido del árbol por el de otra versión, la nueva
+     * raíz se publica de forma atómica.
+     * 
+     * @param version El árbol cuyo contenido tendrá este árbol
+     */
+    public void publicar(ArbolAVL version) {
+        estado.set(version.estado.get());
+    }
+
+    /**
+     * Método para obtener la raíz de la versión actual del árbol, los nodos son inmutables
+     * por lo que se pueden recorrer sin que otra modificación los altere
+     * 
+     * @return La raíz actual, null si el árbol está vacío
+     */
+    Nodo getRaiz() {
+        return estado.get().raiz;
+    }
+
+    /**
+     * Método para obtener el contador de modificaciones del árbol, aumenta cada vez que
+     * una inserción o eliminación cambia su contenido
+     * 
+     * @return La cantidad de modificaciones que ha tenido el árbol
+     */
+    public long getVersion() {
+        return estado.get().version;
+    }
+
+    /**
+     * Método para obtener la huella de la forma del árbol, depende de las cartas y de
+     * cómo están enlazadas, de modo que dos árboles con la misma huella se dibujan igual.
+     * Se mantiene en cada nodo por lo que obtenerla no recorre el árbol.
+     * 
+     * @return La huella de 64 bits de la forma del árbol, 0 si está vacío
+     */
+    public long getHuella() {
+        Nodo raiz = estado.get().raiz;
+        return raiz == null ? 0L : raiz.huella;
+    }
+
+    /**
+     * Método para obtener el dibujo del estado actual del árbol, la disposición se
+     * calcula en memoria sin depender de graphviz
+     * 
+     * @return El dibujo del árbol
+     */
+    public GraficoArbol getGrafico() {
+        return new GraficoArbol(estado.get().raiz);
+    }
+
+    /**
+     * Método para graficar el arbol avl, el formato de la imagen se toma de la
+     * extensión de la ruta; con extensión svg se genera un documento SVG y con
+     * extensión dot el código de graphviz
      * 
      * @param path La ruta en la cual se guardará la imagen generada.
+     * @throws UncheckedIOException Si no se puede escribir la imagen
      */
     public void graficar(String path) {
-        raiz.graficar(path);
+        GraficoArbol grafico = getGrafico();
+        String formato = path.substring(path.lastIndexOf('.') + 1).toLowerCase();
+        try {
+            if (formato.equals("svg") || formato.equals("dot")) {
+                try (Writer escritor = new BufferedWriter(new OutputStreamWriter(
+                        new FileOutputStream(path), StandardCharsets.UTF_8))) {
+                    if (formato.equals("svg")) {
+                        grafico.escribirSvg(escritor);
+                    } else {
+                        grafico.escribirDot(escritor);
+                    }
+                }
+            } else {
+                try (OutputStream salida = new BufferedOutputStream(new FileOutputStream(path))) {
+                    grafico.escribirImagen(formato, salida);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al generar la imagen ".concat(path), e);
+        }
     }
 
     /**
@@ -35,8 +268,7 @@ public class ArbolAVL {
      * @return Un arreglo de cartas ordenadas inOrder
      */
     public Carta[] inOrder() {
-        Cola cola = new Cola();
-        return inOrder(raiz, cola).toArray();
+        return recorrer(Recorrido.IN_ORDER);
     }
 
     /**
@@ -45,8 +277,7 @@ public class ArbolAVL {
      * @return Un arreglo de cartas ordenadas preOrder
      */
     public Carta[] preOrder() {
-        Cola cola = new Cola();
-        return preOrder(raiz, cola).toArray();
+        return recorrer(Recorrido.PRE_ORDER);
     }
 
     /**
@@ -55,8 +286,214 @@ public class ArbolAVL {
      * @return Un arreglo de cartas ordenadas postOrder
      */
     public Carta[] posOrder() {
-        Cola cola = new Cola();
-        return posOrder(raiz, cola).toArray();
+        return recorrer(Recorrido.POST_ORDER);
+    }
+
+    /**
+     * Método para obtener un recorrido del arbol en un arreglo. El recorrido se guarda
+     * en la versión actual del árbol y se devuelve una copia, por lo que quien la recibe
+     * puede modificarla.
+     * 
+     * @param orden El recorrido a realizar
+     * @return Un arreglo con las cartas en el orden del recorrido
+     */
+    public Carta[] recorrer(Recorrido orden) {
+        return recorridoGuardado(orden).clone();
+    }
+
+    /**
+     * Método para obtener un recorrido del arbol sin copiarlo, para quien solo lo lee
+     * completo, como la respuesta de un recorrido
+     * 
+     * @param orden El recorrido a realizar
+     * @return Una lista de solo lectura con las cartas en el orden del recorrido
+     */
+    public List<Carta> getRecorrido(Recorrido orden) {
+        return Collections.unmodifiableList(Arrays.asList(recorridoGuardado(orden)));
+    }
+
+    /**
+     * Método que obtiene el recorrido guardado en la versión actual del árbol. El arreglo
+     * se crea con el tamaño exacto y se llena directamente con el iterador del recorrido;
+     * las siguientes consultas lo reutilizan mientras el árbol no cambie, por lo que no
+     * sale de la clase sin copiarse.
+     * 
+     * @param orden El recorrido a realizar
+     * @return El arreglo compartido con las cartas en el orden del recorrido
+     */
+    private Carta[] recorridoGuardado(Recorrido orden) {
+        Estado actual = estado.get();
+        AtomicReferenceArray<Carta[]> memoria = actual.memoria();
+        Carta[] cartas = memoria.get(orden.ordinal());
+        if (cartas == null) {
+            cartas = new Carta[Nodo.tamano(actual.raiz)];
+            Iterador iterador = new Iterador(actual.raiz, orden, 0, cartas.length);
+            for (int i = 0; i < cartas.length; i++) {
+                cartas[i] = iterador.next();
+            }
+            memoria.set(orden.ordinal(), cartas);
+        }
+        return cartas;
+    }
+
+    /**
+     * Método para recorrer el árbol en orden de menor a mayor total
+     * 
+     * @return Un iterador perezoso del recorrido inOrder
+     */
+    @Override
+    public Iterator<Carta> iterator() {
+        return iterador(Recorrido.IN_ORDER);
+    }
+
+    /**
+     * Método para obtener un iterador perezoso de un recorrido. El iterador trabaja
+     * sobre la versión del árbol que existía al crearlo y guarda en una pila explícita
+     * solo el camino pendiente, por lo que se puede abandonar en cualquier momento sin
+     * haber copiado el resto de cartas.
+     * 
+     * @param orden El recorrido a realizar
+     * @return El iterador del recorrido
+     */
+    public Iterator<Carta> iterador(Recorrido orden) {
+        return iterador(orden, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Método para obtener un iterador perezoso de una página de un recorrido. El inicio
+     * se alcanza bajando una sola vez desde la raíz con los tamaños de los subárboles,
+     * por lo que obtener una página cuesta O(log n + cantidad) sin importar dónde empiece.
+     * 
+     * @param orden    El recorrido a realizar
+     * @param desde    La posición del recorrido en la que empieza la página
+     * @param cantidad La cantidad máxima de cartas de la página
+     * @return El iterador de la página, vacío si la página empieza después del final
+     */
+    public Iterator<Carta> iterador(Recorrido orden, int desde, int cantidad) {
+        return new Iterador(estado.get().raiz, orden, desde, cantidad);
+    }
+
+    /**
+     * Método para obtener la posición que tendría una carta en el recorrido inOrder
+     * 
+     * @param dato La carta a ubicar
+     * @return La cantidad de cartas del árbol con un total menor, que es la posición
+     *         de la carta si se encuentra en el árbol
+     */
+    public int getRango(Carta dato) {
+        return getRango(dato.getTotal());
+    }
+
+    /**
+     * Método para obtener la cantidad de cartas del árbol con un total menor al indicado
+     * 
+     * @param total El total de referencia
+     * @return La cantidad de cartas con un total menor
+     */
+    private int getRango(int total) {
+        Nodo actual = estado.get().raiz;
+        int rango = 0;
+        while (actual != null) {
+            if (actual.dato.getTotal() < total) {
+                rango += Nodo.tamano(actual.izquierda) + 1;
+                actual = actual.derecha;
+            } else {
+                actual = actual.izquierda;
+            }
+        }
+        return rango;
+    }
+
+    /**
+     * Método para obtener las cartas cuyo total se encuentra en un rango, ordenadas de
+     * menor a mayor total. Los límites del rango se ubican con dos descensos desde la raíz
+     * y el recorrido solo visita los subárboles que contienen cartas del rango, por lo que
+     * el costo es O(log n + k) con k la cantidad de cartas encontradas.
+     * 
+     * @param totalMinimo El menor total del rango, incluido
+     * @param totalMaximo El mayor total del rango, incluido
+     * @return Un iterador perezoso con las cartas del rango
+     */
+    public Iterator<Carta> buscarRango(int totalMinimo, int totalMaximo) {
+        ArbolAVL version = instantanea();
+        if (totalMinimo > totalMaximo) {
+            return version.iterador(Recorrido.IN_ORDER, 0, 0);
+        }
+        int desde = version.getRango(totalMinimo);
+        int hasta = totalMaximo == Integer.MAX_VALUE ? version.getCantidadNodos() : version.getRango(totalMaximo + 1);
+        return version.iterador(Recorrido.IN_ORDER, desde, hasta - desde);
+    }
+
+    /**
+     * Método para obtener las cartas de un tipo, ordenadas por valor
+     * 
+     * @param tipo El tipo de las cartas a buscar
+     * @return Un iterador perezoso con las cartas del tipo
+     */
+    public Iterator<Carta> buscarTipo(TipoCarta tipo) {
+        return buscarRango(tipo.getAcarreo() + 1, tipo.getAcarreo() + Carta.CARTAS_POR_TIPO);
+    }
+
+    /**
+     * Método para obtener la cantidad de nodos del árbol
+     * 
+     * @return La cantidad de nodos
+     */
+    private int getCantidadNodos() {
+        return Nodo.tamano(estado.get().raiz);
+    }
+
+    /**
+     * Método para obtener la carta en una posición del recorrido inOrder
+     * 
+     * @param posicion La posición de la carta, comenzando en 0
+     * @return La carta en la posición, null si la posición no existe
+     */
+    public Carta seleccionar(int posicion) {
+        Nodo actual = estado.get().raiz;
+        if (posicion < 0 || posicion >= Nodo.tamano(actual)) {
+            return null;
+        }
+        while (true) {
+            int izquierdos = Nodo.tamano(actual.izquierda);
+            if (posicion < izquierdos) {
+                actual = actual.izquierda;
+            } else if (posicion == izquierdos) {
+                return actual.dato;
+            } else {
+                posicion -= izquierdos + 1;
+                actual = actual.derecha;
+            }
+        }
+    }
+
+    /**
+     * Método para obtener un spliterator de un recorrido, conoce el tamaño exacto de la
+     * versión del árbol que recorre, por lo que se puede dividir para procesarse en paralelo
+     * 
+     * @param orden El recorrido a realizar
+     * @return El spliterator del recorrido
+     */
+    public Spliterator<Carta> spliterator(Recorrido orden) {
+        Nodo actual = estado.get().raiz;
+        return Spliterators.spliterator(new Iterador(actual, orden, 0, Integer.MAX_VALUE), Nodo.tamano(actual),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+    }
+
+    @Override
+    public Spliterator<Carta> spliterator() {
+        return spliterator(Recorrido.IN_ORDER);
+    }
+
+    /**
+     * Método para obtener un stream de las cartas en el orden de un recorrido
+     * 
+     * @param orden    El recorrido a realizar
+     * @param paralelo true si el stream debe procesarse en paralelo
+     * @return El stream del recorrido
+     */
+    public Stream<Carta> stream(Recorrido orden, boolean paralelo) {
+        return StreamSupport.stream(spliterator(orden), paralelo);
     }
 
     /**
@@ -64,11 +501,138 @@ public class ArbolAVL {
      * raiz en 0
      * 
      * @param limit El nivel que se quiere obtener
-     * @return El arreglo con las cartas del nivel solicitado.
+     * @return Una copia del arreglo con las cartas del nivel solicitado, el nivel se
+     *         guarda en la versión actual del árbol para las consultas siguientes
      */
     public Carta[] getNivel(int limit) {
-        Cola cola = new Cola();
-        return getNivel(raiz, cola, 0, limit).toArray();
+        Estado actual = estado.get();
+        if (actual.raiz == null || limit < 0 || limit > actual.raiz.altura) {
+            return new Carta[0];
+        }
+        return nivelGuardado(actual, limit).clone();
+    }
+
+    /**
+     * Método que obtiene un nivel guardado en una versión del árbol, lo calcula si
+     * todavía no se ha consultado
+     * 
+     * @param actual La versión del árbol, con raíz
+     * @param limit  El nivel, entre 0 y la altura de la raíz
+     * @return El arreglo compartido con las cartas del nivel
+     */
+    private Carta[] nivelGuardado(Estado actual, int limit) {
+        AtomicReferenceArray<Carta[]> memoria = actual.memoria();
+        Carta[] cartas = memoria.get(Estado.PRIMER_NIVEL + limit);
+        if (cartas == null) {
+            cartas = getNivel(actual.raiz, new Cola(), 0, limit).toArray();
+            memoria.set(Estado.PRIMER_NIVEL + limit, cartas);
+        }
+        return cartas;
+    }
+
+    /**
+     * Método para obtener las cartas de todos los niveles del árbol en un solo recorrido
+     * por anchura, cada nodo se visita una única vez
+     * 
+     * @return Un arreglo con una copia del arreglo de cartas de cada nivel, comenzando
+     *         por la raíz, las cartas de cada nivel van de izquierda a derecha. Los
+     *         niveles se guardan en la versión actual del árbol para las consultas de
+     *         niveles siguientes.
+     */
+    public Carta[][] getNiveles() {
+        Carta[][] niveles = nivelesGuardados();
+        for (int nivel = 0; nivel < niveles.length; nivel++) {
+            niveles[nivel] = niveles[nivel].clone();
+        }
+        return niveles;
+    }
+
+    /**
+     * Método que obtiene los niveles guardados en la versión actual del árbol, los que
+     * faltan se calculan en un solo recorrido
+     * 
+     * @return Un arreglo nuevo con los arreglos compartidos de cada nivel
+     */
+    private Carta[][] nivelesGuardados() {
+        Estado version = estado.get();
+        Nodo actual = version.raiz;
+        if (actual == null) {
+            return new Carta[0][];
+        }
+        Carta[][] niveles = new Carta[actual.altura + 1][];
+        AtomicReferenceArray<Carta[]> memoria = version.memoria();
+        boolean completos = true;
+        for (int nivel = 0; nivel < niveles.length && completos; nivel++) {
+            niveles[nivel] = memoria.get(Estado.PRIMER_NIVEL + nivel);
+            completos = niveles[nivel] != null;
+        }
+        if (completos) {
+            return niveles;
+        }
+        Nodo[] cola = new Nodo[Long.bitCount(actual.mascara)];
+        int inicio = 0;
+        int fin = 0;
+        cola[fin++] = actual;
+        for (int nivel = 0; nivel < niveles.length; nivel++) {
+            int finNivel = fin;
+            Carta[] cartas = new Carta[finNivel - inicio];
+            for (int i = 0; inicio < finNivel; inicio++, i++) {
+                Nodo nodo = cola[inicio];
+                cartas[i] = nodo.dato;
+                if (nodo.izquierda != null) {
+                    cola[fin++] = nodo.izquierda;
+                }
+                if (nodo.derecha != null) {
+                    cola[fin++] = nodo.derecha;
+                }
+            }
+            niveles[nivel] = cartas;
+            memoria.set(Estado.PRIMER_NIVEL + nivel, cartas);
+        }
+        return niveles;
+    }
+
+    /**
+     * Método para saber si una carta se encuentra en el árbol, la raíz lleva el índice de
+     * presencia de todas las cartas por lo que la consulta es una sola operación de bits
+     * 
+     * @param dato La carta a buscar
+     * @return true si la carta se encuentra en el árbol
+     */
+    public boolean contiene(Carta dato) {
+        return (getMascara() & (1L << dato.getIndice())) != 0;
+    }
+
+    /**
+     * Método para obtener el índice de presencia de las cartas del árbol
+     * 
+     * @return Una máscara de bits en la que el bit i está encendido si la carta con
+     *         índice i se encuentra en el árbol
+     */
+    public long getMascara() {
+        Nodo actual = estado.get().raiz;
+        return actual == null ? 0L : actual.mascara;
+    }
+
+    /**
+     * Método para obtener el índice de las cartas que son hojas, que son las únicas que
+     * el juego permite eliminar. Se mantiene en cada nodo por lo que no recorre el árbol.
+     * 
+     * @return Una máscara de bits en la que el bit i está encendido si la carta con
+     *         índice i es una hoja del árbol
+     */
+    public long getHojas() {
+        Nodo actual = estado.get().raiz;
+        return actual == null ? 0L : actual.hojas;
+    }
+
+    /**
+     * Método para obtener la cantidad de cartas en el árbol
+     * 
+     * @return La cantidad de cartas que quedan en el árbol
+     */
+    public int getCantidad() {
+        return Long.bitCount(getMascara());
     }
 
     /**
@@ -79,7 +643,7 @@ public class ArbolAVL {
      *         Carta.
      */
     public Nodo buscar(Carta dato) {
-        Nodo actual = raiz;
+        Nodo actual = estado.get().raiz;
         while (actual != null) {
             if (actual.dato.equals(dato)) {
                 break;
@@ -89,13 +653,68 @@ public class ArbolAVL {
         return actual;
     }
 
+    /**
+     * Método para consultar en un solo descenso si una o dos cartas se encuentran en el
+     * árbol y si son hojas. Ambas búsquedas comparten el camino desde la raíz hasta el
+     * nodo donde se separan, y de ahí cada una sigue por su lado.
+     * 
+     * @param dato1 La primera carta a consultar
+     * @param dato2 La segunda carta a consultar, puede ser null para consultar una sola
+     * @return Una combinación de los bits PRESENTE_1, HOJA_1, PRESENTE_2 y HOJA_2
+     */
+    public int consultarHojas(Carta dato1, Carta dato2) {
+        Nodo actual = estado.get().raiz;
+        int total1 = dato1.getTotal();
+        int total2 = dato2 == null ? total1 : dato2.getTotal();
+        while (actual != null) {
+            int total = actual.dato.getTotal();
+            if (total == total1 || total == total2 || (total1 < total) != (total2 < total)) {
+                break;
+            }
+            actual = total1 < total ? actual.izquierda : actual.derecha;
+        }
+        int resultado = marcar(buscar(actual, total1), PRESENTE_1);
+        if (dato2 != null) {
+            resultado |= marcar(buscar(actual, total2), PRESENTE_2);
+        }
+        return resultado;
+    }
+
+    /**
+     * Método para buscar un total a partir de un nodo
+     * 
+     * @param actual El nodo desde el cual se busca
+     * @param total  El total de la carta a buscar
+     * @return El nodo con el total, null si no se encuentra
+     */
+    private static Nodo buscar(Nodo actual, int total) {
+        while (actual != null && actual.dato.getTotal() != total) {
+            actual = actual.dato.getTotal() < total ? actual.derecha : actual.izquierda;
+        }
+        return actual;
+    }
+
+    /**
+     * Método para convertir el resultado de una búsqueda en los bits de consultarHojas
+     * 
+     * @param nodo     El nodo encontrado, puede ser null
+     * @param presente El bit de presencia de la carta, el bit de hoja es el siguiente
+     * @return Los bits que describen al nodo
+     */
+    private static int marcar(Nodo nodo, int presente) {
+        if (nodo == null) {
+            return 0;
+        }
+        return nodo.izquierda == null && nodo.derecha == null ? presente | (presente << 1) : presente;
+    }
+
     /**
      * Método para insertar una Carta en el árbol
      * 
      * @param dato La Carta a insertar
      */
     public void insertar(Carta dato) {
-        raiz = insertar(raiz, dato);
+        estado.updateAndGet(actual -> actual.siguiente(insertar(actual.raiz, dato)));
     }
 
     /**
@@ -104,7 +723,21 @@ public class ArbolAVL {
      * @param dato La Carta a eliminar
      */
     public void eliminar(Carta dato) {
-        raiz = eliminar(raiz, dato);
+        estado.updateAndGet(actual -> actual.siguiente(eliminar(actual.raiz, dato)));
+    }
+
+    /**
+     * Método para eliminar dos cartas del árbol en una sola pasada. Se recorre una vez el
+     * camino compartido y después cada rama por su lado, rebalanceando cada nodo del
+     * recorrido una sola vez. Está pensado para hojas, que es lo que permite el juego: si
+     * se eliminan en secuencia, las rotaciones de la primera eliminación pueden convertir
+     * a la segunda carta en padre y dejarla en el árbol.
+     * 
+     * @param dato1 La primera carta a eliminar
+     * @param dato2 La segunda carta a eliminar, puede ser null para eliminar una sola
+     */
+    public void eliminarHojas(Carta dato1, Carta dato2) {
+        estado.updateAndGet(actual -> actual.siguiente(eliminarHojas(actual.raiz, dato1, dato2)));
     }
 
     /**
@@ -114,7 +747,7 @@ public class ArbolAVL {
      *         la altura del árbol
      */
     public int altura() {
-        return raiz == null ? -1 : raiz.altura;
+        return altura(estado.get().raiz);
     }
 
     /**
@@ -144,14 +777,9 @@ public class ArbolAVL {
      * @param nodo El nodo desde el cual se quiere hacer la rotación
      * @return el nuevo nodo padre luego de haber hecho la rotación
      */
-    private Nodo rotacionDerecha(Nodo nodo) {
+    private static Nodo rotacionDerecha(Nodo nodo) {
         Nodo padre = nodo.izquierda;
-        Nodo derechoPadre = padre.derecha;
-        padre.derecha = nodo;
-        nodo.izquierda = derechoPadre;
-        actualizarAltura(nodo);
-        actualizarAltura(padre);
-        return padre;
+        return new Nodo(padre.dato, padre.izquierda, new Nodo(nodo.dato, padre.derecha, nodo.derecha));
     }
 
     /**
@@ -160,283 +788,445 @@ public class ArbolAVL {
      * @param nodo El nodo desde el cual se quiere hacer la rotación
      * @return el nuevo nodo padre luego de haber hecho la rotación
      */
-    private Nodo rotacionIzquierda(Nodo nodo) {
+    private static Nodo rotacionIzquierda(Nodo nodo) {
         Nodo padre = nodo.derecha;
-        Nodo izquierdaPadre = padre.izquierda;
-        padre.izquierda = nodo;
-        nodo.derecha = izquierdaPadre;
-        actualizarAltura(nodo);
-        actualizarAltura(padre);
-        return padre;
+        return new Nodo(padre.dato, new Nodo(nodo.dato, nodo.izquierda, padre.izquierda), padre.derecha);
     }
 
     /**
-     * Método para actualizar la altura de cierto nodo, sumandole 1 al máximo entre
-     * la altura de su hijo izquierdo y derecho
+     * Método para crear la copia de un nodo con nuevos hijos, aplicando las rotaciones
+     * que sean necesarias para mantener el árbol balanceado. Si los hijos no cambiaron
+     * se reutiliza el nodo original.
      * 
-     * @param n El nodo a actualizar la altura
+     * @param nodo      El nodo que se va a copiar
+     * @param izquierda El nuevo hijo izquierdo
+     * @param derecha   El nuevo hijo derecho
+     * @return El nodo resultante luego de realizar rotaciones de ser necesarias
      */
-    private void actualizarAltura(Nodo n) {
-        n.altura = 1 + Math.max(altura(n.izquierda), altura(n.derecha));
-    }
-
-    /**
-     * Método recursivo para rebalancear el árbol avl luego de alguna eliminación o
-     * inserción
-     * 
-     * @param nodo El nodo desde el cual se comenzará a realizar el rebalanceo
-     * @return El nodo luego de haber realizado rotaciones de ser necesarias
-     */
-    private Nodo rebalancear(Nodo nodo) {
-        actualizarAltura(nodo);
-        int fe = getFactorEquilibrio(nodo);
+    private static Nodo rebalancear(Nodo nodo, Nodo izquierda, Nodo derecha) {
+        if (nodo.izquierda == izquierda && nodo.derecha == derecha) {
+            return nodo;
+        }
+        nodo = new Nodo(nodo.dato, izquierda, derecha);
+        int fe = Nodo.altura(nodo.derecha) - Nodo.altura(nodo.izquierda);
         if (fe > 1) {
-            if (altura(nodo.derecha.derecha) > altura(nodo.derecha.izquierda)) {
+            // Si el hijo está equilibrado basta la rotación simple, esto solo ocurre al eliminar
+            if (Nodo.altura(nodo.derecha.derecha) >= Nodo.altura(nodo.derecha.izquierda)) {
                 nodo = rotacionIzquierda(nodo);
             } else {
-                nodo.derecha = rotacionDerecha(nodo.derecha);
-                nodo = rotacionIzquierda(nodo);
+                nodo = rotacionIzquierda(new Nodo(nodo.dato, nodo.izquierda, rotacionDerecha(nodo.derecha)));
             }
         } else if (fe < -1) {
-            if (altura(nodo.izquierda.izquierda) > altura(nodo.izquierda.derecha)) {
+            if (Nodo.altura(nodo.izquierda.izquierda) >= Nodo.altura(nodo.izquierda.derecha)) {
                 nodo = rotacionDerecha(nodo);
             } else {
-                nodo.izquierda = rotacionIzquierda(nodo.izquierda);
-                nodo = rotacionDerecha(nodo);
+                nodo = rotacionDerecha(new Nodo(nodo.dato, rotacionIzquierda(nodo.izquierda), nodo.derecha));
             }
         }
         return nodo;
     }
 
     /**
-     * Método recursivo para realizar una inserción en el arbol
+     * Método recursivo para realizar una inserción en el arbol, copiando los nodos
+     * del camino recorrido
      * 
      * @param nodo El nodo desde el cual se realizará la inserción
      * @param dato La carta que se va a insertar
-     * @return El nodo donde se insertó luego de aplicarle un rebalanceo
+     * @return La copia del nodo donde se insertó luego de aplicarle un rebalanceo
      */
-    private Nodo insertar(Nodo nodo, Carta dato) {
+    private static Nodo insertar(Nodo nodo, Carta dato) {
         if (nodo == null) {
-            return new Nodo(dato);
+            return new Nodo(dato, null, null);
         } else if (nodo.dato.getTotal() > dato.getTotal()) {
-            nodo.izquierda = insertar(nodo.izquierda, dato);
+            return rebalancear(nodo, insertar(nodo.izquierda, dato), nodo.derecha);
         } else {
-            nodo.derecha = insertar(nodo.derecha, dato);
+            return rebalancear(nodo, nodo.izquierda, insertar(nodo.derecha, dato));
         }
-        return rebalancear(nodo);
     }
 
     /**
-     * Método recursivo para eliminar un nodo del arbol
+     * Método recursivo para eliminar dos cartas del arbol, mientras ambas van hacia el
+     * mismo lado se baja con las dos y al separarse cada rama elimina la suya
+     * 
+     * @param nodo  El nodo desde el cual se comenzará a eliminar
+     * @param dato1 La primera carta a eliminar
+     * @param dato2 La segunda carta a eliminar, puede ser null
+     * @return El nodo final luego de completar ambas eliminaciones
+     */
+    static Nodo eliminarHojas(Nodo nodo, Carta dato1, Carta dato2) {
+        if (nodo == null || dato2 == null) {
+            return eliminar(nodo, dato1);
+        }
+        int total = nodo.dato.getTotal();
+        int total1 = dato1.getTotal();
+        int total2 = dato2.getTotal();
+        if (total == total1 || total == total2) {
+            // Una de las cartas es este nodo, por lo que no es hoja y se elimina en secuencia
+            return eliminar(eliminar(nodo, dato1), dato2);
+        } else if (total1 < total && total2 < total) {
+            return rebalancear(nodo, eliminarHojas(nodo.izquierda, dato1, dato2), nodo.derecha);
+        } else if (total1 > total && total2 > total) {
+            return rebalancear(nodo, nodo.izquierda, eliminarHojas(nodo.derecha, dato1, dato2));
+        } else if (total1 < total) {
+            return rebalancear(nodo, eliminar(nodo.izquierda, dato1), eliminar(nodo.derecha, dato2));
+        }
+        return rebalancear(nodo, eliminar(nodo.izquierda, dato2), eliminar(nodo.derecha, dato1));
+    }
+
+    /**
+     * Método recursivo para eliminar un nodo del arbol, copiando los nodos del
+     * camino recorrido
      * 
      * @param nodo El nodo desde el cual se comenzará a eliminar
      * @param dato La Carta que se quiere eliminar
      * @return El nodo final luego de haber completado la eliminación, puede ser
      *         null y dependiendo de eso se le aplica rebalanceo
      */
-    private Nodo eliminar(Nodo nodo, Carta dato) {
+    private static Nodo eliminar(Nodo nodo, Carta dato) {
         if (nodo == null) {
             return nodo;
         } else if (nodo.dato.getTotal() > dato.getTotal()) {
-            nodo.izquierda = eliminar(nodo.izquierda, dato);
+            return rebalancear(nodo, eliminar(nodo.izquierda, dato), nodo.derecha);
         } else if (nodo.dato.getTotal() < dato.getTotal()) {
-            nodo.derecha = eliminar(nodo.derecha, dato);
-        } else {
-            if (nodo.izquierda == null || nodo.derecha == null) {
-                nodo = nodo.izquierda == null ? nodo.derecha : nodo.izquierda;
-            }
-        }
-        if (nodo != null) {
-            nodo = rebalancear(nodo);
+            return rebalancear(nodo, nodo.izquierda, eliminar(nodo.derecha, dato));
+        } else if (nodo.izquierda == null || nodo.derecha == null) {
+            return nodo.izquierda == null ? nodo.derecha : nodo.izquierda;
         }
         return nodo;
     }
 
     /**
-     * Método recursivo para obtener el recorrido inOrder del arbol
+     * Método recursivo para obtener las Cartas de un nivel específico, no baja más
+     * allá del nivel solicitado ni a subárboles que no lo alcanzan
      * 
-     * @param nodo El nodo desde el cual se comenzará a hacer el recorrido
-     * @param cola La cola de cartas acumuladas antes de hacer el recorrido
-     * @return La cola de cartas acumuladas luego de hacer el recorrido
+     * @param nodo   el nodo desde el cual se comenzará a recorrer el arbol
+     * @param cola   La cola de cartas acumuladas antes de hacer el recorrido
+     * @param altura La altura que se lleva recorrida del arbol
+     * @param limit  La altura limite en la cual se ecuentran las cartas de interés
+     * @return La cola de cartas acumuladas luego de hacer el recorrido y comprobado
+     *         que se encuentran en el nivel solicitado
      */
-    private Cola inOrder(Nodo nodo, Cola cola) {
-        if (nodo.izquierda != null) {
-            inOrder(nodo.izquierda, cola);
+    private Cola getNivel(Nodo nodo, Cola cola, int altura, int limit) {
+        if (altura == limit) {
+            cola.insertar(nodo.dato);
+            return cola;
         }
-        cola.insertar(nodo.dato);
-        if (nodo.derecha != null) {
-            inOrder(nodo.derecha, cola);
+        // Solo se baja a los subárboles lo bastante altos para llegar al nivel solicitado
+        if (nodo.izquierda != null && nodo.izquierda.altura >= limit - altura - 1) {
+            getNivel(nodo.izquierda, cola, altura + 1, limit);
+        }
+        if (nodo.derecha != null && nodo.derecha.altura >= limit - altura - 1) {
+            getNivel(nodo.derecha, cola, altura + 1, limit);
         }
         return cola;
     }
 
     /**
-     * Método recursivo para obtener el recorrido preOrder del arbol
-     * 
-     * @param nodo El nodo desde el cual se comenzará a hacer el recorrido
-     * @param cola La cola de cartas acumuladas antes de hacer el recorrido
-     * @return La cola de cartas acumuladas luego de hacer el recorrido
+     * Clase que representa una versión publicada del árbol: su raíz, el número de
+     * modificaciones que la produjeron y la memoria de recorridos y niveles que se han
+     * calculado sobre ella. Las copias instantáneas comparten la versión, por lo que
+     * también comparten su memoria, y cualquier modificación publica una versión nueva
+     * con la memoria vacía.
      */
-    private Cola preOrder(Nodo nodo, Cola cola) {
-        cola.insertar(nodo.dato);
-        if (nodo.izquierda != null) {
-            preOrder(nodo.izquierda, cola);
+    private static final class Estado {
+        /**
+         * Posición de la memoria en la que comienzan los niveles, antes van los recorridos
+         */
+        static final int PRIMER_NIVEL = Recorrido.values().length;
+
+        final Nodo raiz;
+        final long version;
+        /**
+         * Memoria de resultados, se crea hasta la primera consulta para que las
+         * modificaciones no reserven espacio que quizás nadie va a usar
+         */
+        private volatile AtomicReferenceArray<Carta[]> memoria;
+
+        /**
+         * Constructor de una versión del árbol
+         * 
+         * @param raiz    La raíz de la versión
+         * @param version El número de modificaciones que produjeron la versión
+         */
+        Estado(Nodo raiz, long version) {
+            this.raiz = raiz;
+            this.version = version;
         }
-        if (nodo.derecha != null) {
-            preOrder(nodo.derecha, cola);
+
+        /**
+         * Método para obtener la versión que sigue luego de una modificación
+         * 
+         * @param nuevaRaiz La raíz resultante de la modificación
+         * @return Esta misma versión si la raíz no cambió, de lo contrario una nueva
+         *         versión con el contador aumentado
+         */
+        Estado siguiente(Nodo nuevaRaiz) {
+            return nuevaRaiz == raiz ? this : new Estado(nuevaRaiz, version + 1);
+        }
+
+        /**
+         * Método para obtener la memoria de resultados de la versión. Si dos lectores la
+         * crean al mismo tiempo uno de los dos resultados se pierde, lo cual solo obliga a
+         * calcularlo otra vez.
+         * 
+         * @return La memoria de la versión
+         */
+        AtomicReferenceArray<Carta[]> memoria() {
+            AtomicReferenceArray<Carta[]> actual = memoria;
+            if (actual == null) {
+                actual = new AtomicReferenceArray<>(PRIMER_NIVEL + (raiz == null ? 0 : raiz.altura + 1));
+                memoria = actual;
+            }
+            return actual;
         }
-        return cola;
     }
 
     /**
-     * Método recursivo para obtener el recorrido postOrder del arbol
-     * 
-     * @param nodo El nodo desde el cual se comenzará a hacer el recorrido
-     * @param cola La cola de cartas acumuladas antes de hacer el recorrido
-     * @return La cola de cartas acumuladas luego de hacer el recorrido
+     * Clase para recorrer el árbol de forma perezosa con una pila explícita en lugar de
+     * recursión. La pila solo necesita espacio para un camino de la raíz a una hoja.
      */
-    private Cola posOrder(Nodo nodo, Cola cola) {
-        if (nodo.izquierda != null) {
-            posOrder(nodo.izquierda, cola);
+    private static final class Iterador implements Iterator<Carta> {
+        private final Recorrido orden;
+        private final Nodo[] pila;
+        private int tope;
+        /**
+         * Cantidad de cartas que todavía puede devolver el iterador
+         */
+        private int restantes;
+
+        /**
+         * Constructor del iterador, la pila se prepara para que la primera carta devuelta
+         * sea la de la posición de inicio
+         * 
+         * @param raiz     La raíz de la versión del árbol a recorrer
+         * @param orden    El recorrido a realizar
+         * @param desde    La posición del recorrido en la que se empieza
+         * @param cantidad La cantidad máxima de cartas a devolver
+         */
+        Iterador(Nodo raiz, Recorrido orden, int desde, int cantidad) {
+            this.orden = orden;
+            pila = new Nodo[raiz == null ? 0 : raiz.altura + 2];
+            restantes = cantidad;
+            if (desde >= 0 && desde < Nodo.tamano(raiz)) {
+                switch (orden) {
+                    case IN_ORDER -> apilarDesdeInOrden(raiz, desde);
+                    case PRE_ORDER -> apilarDesdePreOrden(raiz, desde);
+                    case POST_ORDER -> apilarDesdePosOrden(raiz, desde);
+                }
+            }
         }
-        if (nodo.derecha != null) {
-            posOrder(nodo.derecha, cola);
+
+        @Override
+        public boolean hasNext() {
+            return tope > 0 && restantes > 0;
         }
-        cola.insertar(nodo.dato);
-        return cola;
-    }
 
-    /**
-     * Método recursivo para obtener las Cartas de un nivel específico
-     * 
-     * @param nodo   el nodo desde el cual se comenzará a recorrer el arbol
-     * @param cola   La cola de cartas acumuladas antes de hacer el recorrido
-     * @param altura La altura que se lleva recorrida del arbol
-     * @param limit  La altura limite en la cual se ecuentran las cartas de interés
-     * @return La cola de cartas acumuladas luego de hacer el recorrido y comprobado
-     *         que se encuentran en el nivel solicitado
-     */
-    private Cola getNivel(Nodo nodo, Cola cola, int altura, int limit) {
-        if (nodo.izquierda != null) {
-            getNivel(nodo.izquierda, cola, altura + 1, limit);
+        @Override
+        public Carta next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            restantes--;
+            Nodo nodo = pila[--tope];
+            switch (orden) {
+                case IN_ORDER -> apilarIzquierdos(nodo.derecha);
+                case PRE_ORDER -> {
+                    if (nodo.derecha != null) {
+                        pila[tope++] = nodo.derecha;
+                    }
+                    if (nodo.izquierda != null) {
+                        pila[tope++] = nodo.izquierda;
+                    }
+                }
+                case POST_ORDER -> {
+                    if (tope > 0 && pila[tope - 1].izquierda == nodo && pila[tope - 1].derecha != null) {
+                        apilarPrimeroPosOrden(pila[tope - 1].derecha);
+                    }
+                }
+            }
+            return nodo.dato;
         }
 
-        if (altura == limit) {
-            cola.insertar(nodo.dato);
+        /**
+         * Método para apilar los nodos pendientes del recorrido inOrder a partir de una
+         * posición, son los ancestros desde los que se bajó por la izquierda
+         * 
+         * @param nodo     La raíz del árbol
+         * @param posicion La posición de la primera carta a devolver
+         */
+        private void apilarDesdeInOrden(Nodo nodo, int posicion) {
+            while (true) {
+                int izquierdos = Nodo.tamano(nodo.izquierda);
+                if (posicion > izquierdos) {
+                    posicion -= izquierdos + 1;
+                    nodo = nodo.derecha;
+                    continue;
+                }
+                pila[tope++] = nodo;
+                if (posicion == izquierdos) {
+                    return;
+                }
+                nodo = nodo.izquierda;
+            }
         }
 
-        if (nodo.derecha != null) {
-            getNivel(nodo.derecha, cola, altura + 1, limit);
+        /**
+         * Método para apilar los subárboles pendientes del recorrido preOrder a partir de
+         * una posición, son los hijos derechos de los nodos desde los que se bajó por la
+         * izquierda
+         * 
+         * @param nodo     La raíz del árbol
+         * @param posicion La posición de la primera carta a devolver
+         */
+        private void apilarDesdePreOrden(Nodo nodo, int posicion) {
+            while (posicion > 0) {
+                posicion--;
+                int izquierdos = Nodo.tamano(nodo.izquierda);
+                if (posicion < izquierdos) {
+                    if (nodo.derecha != null) {
+                        pila[tope++] = nodo.derecha;
+                    }
+                    nodo = nodo.izquierda;
+                } else {
+                    posicion -= izquierdos;
+                    nodo = nodo.derecha;
+                }
+            }
+            pila[tope++] = nodo;
+        }
+
+        /**
+         * Método para apilar el camino hacia la carta de una posición del recorrido
+         * postOrder, que es la pila que tendría el recorrido al llegar a ella
+         * 
+         * @param nodo     La raíz del árbol
+         * @param posicion La posición de la primera carta a devolver
+         */
+        private void apilarDesdePosOrden(Nodo nodo, int posicion) {
+            while (true) {
+                pila[tope++] = nodo;
+                int izquierdos = Nodo.tamano(nodo.izquierda);
+                if (posicion < izquierdos) {
+                    nodo = nodo.izquierda;
+                } else if (posicion < nodo.tamano - 1) {
+                    posicion -= izquierdos;
+                    nodo = nodo.derecha;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Método para apilar un nodo y toda su rama izquierda, el último nodo apilado es
+         * el siguiente del recorrido inOrder
+         * 
+         * @param nodo El nodo desde el cual se apila
+         */
+        private void apilarIzquierdos(Nodo nodo) {
+            while (nodo != null) {
+                pila[tope++] = nodo;
+                nodo = nodo.izquierda;
+            }
+        }
+
+        /**
+         * Método para apilar el camino hacia el primer nodo del recorrido postOrder de un
+         * subárbol, bajando por la izquierda siempre que se pueda y si no por la derecha
+         * 
+         * @param nodo La raíz del subárbol
+         */
+        private void apilarPrimeroPosOrden(Nodo nodo) {
+            while (nodo != null) {
+                pila[tope++] = nodo;
+                nodo = nodo.izquierda != null ? nodo.izquierda : nodo.derecha;
+            }
         }
-        return cola;
     }
 
     /**
-     * Clase Nodo para el ArbolAVL
+     * Clase Nodo para el ArbolAVL, es inmutable para poder compartirse entre
+     * versiones del árbol
      */
-    class Nodo {
-        Carta dato;
-        int altura;
-        Nodo izquierda;
-        Nodo derecha;
-        
+    static class Nodo {
+        final Carta dato;
+        final int altura;
+        /**
+         * Índice de presencia de las cartas del subárbol, se calcula junto con la altura
+         * por lo que se mantiene al día con cada inserción, eliminación y rotación
+         */
+        final long mascara;
+        /**
+         * Índice de presencia de las hojas del subárbol, un nodo sin hijos solo tiene su
+         * propia carta y los demás juntan las hojas de sus hijos. Como las rotaciones crean
+         * nodos nuevos con el constructor se mantiene al día igual que la máscara.
+         */
+        final long hojas;
         /**
-         * Variable privada con la que lleva el control de un correlativo que se le
-         * asignará a cada nodo que es creado, este será único para cada nodo y
-         * servirá para hacer la gráfica del árbol con graphviz.
+         * Huella de la forma del subárbol, combina la carta del nodo con las huellas de
+         * sus hijos distinguiendo el lado de cada uno
          */
-        private static int correlativo = 1;
+        final long huella;
         /**
-         * Constante privada que posee cada nodo y es única, funciona como
-         * identificador y será útil para hacer la gráfica del árbol con graphviz.
+         * Cantidad de nodos del subárbol, como las rotaciones crean nodos nuevos con el
+         * constructor se mantiene correcta sin tratarla aparte
          */
-        private final int id;
+        final int tamano;
+        final Nodo izquierda;
+        final Nodo derecha;
 
         /**
-         * Constructor de la clase Nodo.
+         * Constructor de la clase Nodo, la altura se calcula a partir de sus hijos.
          * 
-         * @param valor Valor específico que el nodo almacenará.
+         * @param dato      Valor específico que el nodo almacenará.
+         * @param izquierda El hijo izquierdo del nodo
+         * @param derecha   El hijo derecho del nodo
          */
-
-        Nodo(Carta dato) {
+        Nodo(Carta dato, Nodo izquierda, Nodo derecha) {
             this.dato = dato;
-            id = correlativo++;
+            this.izquierda = izquierda;
+            this.derecha = derecha;
+            altura = 1 + Math.max(izquierda == null ? -1 : izquierda.altura, derecha == null ? -1 : derecha.altura);
+            mascara = (1L << dato.getIndice()) | (izquierda == null ? 0L : izquierda.mascara)
+                    | (derecha == null ? 0L : derecha.mascara);
+            hojas = izquierda == null && derecha == null ? 1L << dato.getIndice()
+                    : (izquierda == null ? 0L : izquierda.hojas) | (derecha == null ? 0L : derecha.hojas);
+            tamano = 1 + tamano(izquierda) + tamano(derecha);
+            huella = mezclar((dato.getIndice() + 1) * 0x9E3779B97F4A7C15L
+                    ^ Long.rotateLeft(izquierda == null ? 0L : izquierda.huella, 21)
+                    ^ Long.rotateLeft(derecha == null ? 0L : derecha.huella, 42) * 0xBF58476D1CE4E5B9L);
         }
 
         /**
-         * Método que genera el gráfico del árbol avl con graphviz,
-         * considerando como la raíz de dicho árbol el actual Nodo.
+         * Método para obtener la cantidad de nodos de un subárbol
          * 
-         * @param path Ruta de la imagen que se generará.
+         * @param nodo La raíz del subárbol, puede ser null
+         * @return La cantidad de nodos, 0 si el subárbol está vacío
          */
-        public void graficar(String path) {
-            FileWriter fichero = null;
-            PrintWriter escritor;
-            try {
-                fichero = new FileWriter("aux_grafico.dot");
-                escritor = new PrintWriter(fichero);
-                escritor.print(getCodigoGraphviz());
-            } catch (Exception e) {
-                System.err.println("Error al escribir el archivo aux_grafico.dot");
-            } finally {
-                try {
-                    if (null != fichero)
-                        fichero.close();
-                } catch (Exception e2) {
-                    System.err.println("Error al cerrar el archivo aux_grafico.dot");
-                }
-            }
-            try {
-                Runtime rt = Runtime.getRuntime();
-                rt.exec("dot -Tjpg -o " + path + " aux_grafico.dot");
-                // Esperamos medio segundo para dar tiempo a que la imagen se genere.
-                // Para que no sucedan errores en caso de que se decidan graficar varios
-                // árboles sucesivamente.
-                Thread.sleep(500);
-            } catch (Exception ex) {
-                System.err.println("Error al generar la imagen para el archivo aux_grafico.dot");
-            }
+        static int tamano(Nodo nodo) {
+            return nodo == null ? 0 : nodo.tamano;
         }
 
         /**
-         * Método que retorna el código que grapviz usará para generar la imagen
-         * del árbol binario de búsqueda.
+         * Método para obtener la altura de un subárbol
          * 
-         * @return Código que grapviz usará para generar la imagen
-         *         del árbol binario de búsqueda.
+         * @param nodo La raíz del subárbol, puede ser null
+         * @return La altura del subárbol, -1 si está vacío
          */
-        private String getCodigoGraphviz() {
-            return "digraph grafica{\n" +
-                    "rankdir=TB;\n" +
-                    "node [shape = record, style=filled, fillcolor=\"#8b7bc3\"];\n" +
-                    getCodigoInterno() +
-                    "}\n";
+        static int altura(Nodo nodo) {
+            return nodo == null ? -1 : nodo.altura;
         }
 
         /**
-         * Genera el código interior de graphviz, este método tiene la particularidad
-         * de ser recursivo, esto porque recorrer un árbol de forma recursiva es
-         * bastante
-         * sencillo y reduce el código considerablemente.
+         * Función de mezcla de splitmix64, reparte los bits de la entrada por toda la salida
          * 
-         * @return el código interno de graphviz del nodo actual
+         * @param valor El valor a mezclar
+         * @return El valor mezclado
          */
-        private String getCodigoInterno() {
-            String etiqueta;
-            if (izquierda == null && derecha == null) {
-                etiqueta = "nodo" + id + " [ label =\"" + dato + "\"];\n";
-            } else {
-                etiqueta = "nodo" + id + " [ label =\"<C0>|" + dato + "|<C1>\"];\n";
-            }
-            if (izquierda != null) {
-                etiqueta = etiqueta + izquierda.getCodigoInterno() +
-                        "nodo" + id + ":C0->nodo" + izquierda.id + "\n";
-            }
-            if (derecha != null) {
-                etiqueta = etiqueta + derecha.getCodigoInterno() +
-                        "nodo" + id + ":C1->nodo" + derecha.id + "\n";
-            }
-            return etiqueta;
+        private static long mezclar(long valor) {
+            valor = (valor ^ (valor >>> 30)) * 0xBF58476D1CE4E5B9L;
+            valor = (valor ^ (valor >>> 27)) * 0x94D049BB133111EBL;
+            return valor ^ (valor >>> 31);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,457 @@
+/**
+ * @file ArbolAVLCompacto.java
+ * @author 202030799 Manuel Rojas
+ * @brief Clase de estructura de datos tipo ArbolAVL sobre arreglos primitivos
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.data_structures;
+
+import java.util.Arrays;
+
+import com.mrojas.cartas.models.Carta;
+
+/**
+ * Clase para manejar cartas en un árbol AVL cuyos nodos no son objetos, sino
+ * posiciones dentro de arreglos paralelos con la clave, la altura y los hijos de
+ * cada nodo. Las posiciones liberadas se encadenan en una lista de libres para
+ * reutilizarse. Las cartas solo se materializan al devolverlas, internamente el
+ * árbol guarda el índice de cada carta, que respeta el mismo orden que su total.
+ *
+ * Tiene el mismo comportamiento que ArbolAVL pero no es seguro para hilos, quien
+ * lo use de forma concurrente debe serializar el acceso.
+ */
+public class ArbolAVLCompacto {
+
+    /**
+     * Valor que representa la ausencia de un nodo
+     */
+    private static final int NULO = -1;
+
+    private byte[] claves;
+    private byte[] alturas;
+    private int[] izquierda;
+    private int[] derecha;
+    private int raiz = NULO;
+    /**
+     * Primera posición de la lista de libres, las siguientes se encadenan por el arreglo izquierda
+     */
+    private int libre = NULO;
+    /**
+     * Cantidad de posiciones que se han usado alguna vez
+     */
+    private int usados;
+    private int cantidad;
+
+    /**
+     * Constructor de un árbol vacío con capacidad para una baraja completa
+     */
+    public ArbolAVLCompacto() {
+        this(Carta.TOTAL_CARTAS);
+    }
+
+    /**
+     * Constructor de un árbol vacío
+     *
+     * @param capacidad La cantidad de nodos para la que se reserva espacio inicialmente
+     */
+    public ArbolAVLCompacto(int capacidad) {
+        capacidad = Math.max(capacidad, 1);
+        claves = new byte[capacidad];
+        alturas = new byte[capacidad];
+        izquierda = new int[capacidad];
+        derecha = new int[capacidad];
+    }
+
+    /**
+     * Método para construir un árbol perfectamente balanceado a partir de cartas
+     * ordenadas de forma estrictamente ascendente por su total, en O(n)
+     *
+     * @param ordenadas Las cartas ordenadas por total y sin repetir
+     * @return Un árbol con todas las cartas indicadas
+     */
+    public static ArbolAVLCompacto construir(Carta[] ordenadas) {
+        ArbolAVLCompacto arbol = new ArbolAVLCompacto(ordenadas.length);
+        arbol.raiz = arbol.construir(ordenadas, 0, ordenadas.length - 1);
+        arbol.cantidad = ordenadas.length;
+        return arbol;
+    }
+
+    /**
+     * Método para insertar una Carta en el árbol
+     *
+     * @param dato La Carta a insertar
+     */
+    public void insertar(Carta dato) {
+        raiz = insertar(raiz, dato.getIndice());
+    }
+
+    /**
+     * Método para eliminar una Carta del árbol
+     *
+     * @param dato La Carta a eliminar
+     */
+    public void eliminar(Carta dato) {
+        raiz = eliminar(raiz, dato.getIndice());
+    }
+
+    /**
+     * Método para saber si una carta se encuentra en el árbol
+     *
+     * @param dato La carta a buscar
+     * @return true si la carta se encuentra en el árbol
+     */
+    public boolean contiene(Carta dato) {
+        return buscar(dato.getIndice()) != NULO;
+    }
+
+    /**
+     * Método para saber si una carta del árbol es un nodo padre
+     *
+     * @param dato La carta que se desea comprobar
+     * @return true si la carta está en el árbol y tiene al menos un hijo
+     */
+    public boolean esPadre(Carta dato) {
+        int nodo = buscar(dato.getIndice());
+        return nodo != NULO && alturas[nodo] > 0;
+    }
+
+    /**
+     * Método para obtener la altura del árbol
+     *
+     * @return Devuelve -1 en caso de estar vacio el árbol, de lo contrario devuelve
+     *         la altura del árbol
+     */
+    public int altura() {
+        return altura(raiz);
+    }
+
+    /**
+     * Método para obtener la cantidad de cartas en el árbol
+     *
+     * @return La cantidad de cartas que hay en el árbol
+     */
+    public int getCantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Método para obtener el recorrido inOrder del arbol
+     *
+     * @return Un arreglo de cartas ordenadas inOrder
+     */
+    public Carta[] inOrder() {
+        Carta[] cartas = new Carta[cantidad];
+        inOrder(raiz, cartas, 0);
+        return cartas;
+    }
+
+    /**
+     * Método para obtener el recorrido preOrder del arbol
+     *
+     * @return Un arreglo de cartas ordenadas preOrder
+     */
+    public Carta[] preOrder() {
+        Carta[] cartas = new Carta[cantidad];
+        preOrder(raiz, cartas, 0);
+        return cartas;
+    }
+
+    /**
+     * Método para obtener el recorrido postOrder del arbol
+     *
+     * @return Un arreglo de cartas ordenadas postOrder
+     */
+    public Carta[] posOrder() {
+        Carta[] cartas = new Carta[cantidad];
+        posOrder(raiz, cartas, 0);
+        return cartas;
+    }
+
+    /**
+     * Método para obtener las cartas en cierto nivel del arbol comenzando desde la
+     * raiz en 0
+     *
+     * @param limit El nivel que se quiere obtener
+     * @return El arreglo con las cartas del nivel solicitado, vacío si el nivel es
+     *         negativo o no existe
+     */
+    public Carta[] getNivel(int limit) {
+        if (raiz == NULO || limit < 0) {
+            return new Carta[0];
+        }
+        Carta[] cartas = new Carta[Math.min(cantidad, 1 << Math.min(limit, 30))];
+        int total = getNivel(raiz, cartas, 0, 0, limit);
+        return total == cartas.length ? cartas : Arrays.copyOf(cartas, total);
+    }
+
+    /**
+     * Método para buscar la posición del nodo que guarda una clave
+     *
+     * @param clave El índice de la carta a buscar
+     * @return La posición del nodo o NULO si no se encuentra
+     */
+    private int buscar(int clave) {
+        int actual = raiz;
+        while (actual != NULO && claves[actual] != clave) {
+            actual = claves[actual] < clave ? derecha[actual] : izquierda[actual];
+        }
+        return actual;
+    }
+
+    /**
+     * Método para obtener la altura de un nodo
+     *
+     * @param n La posición del nodo
+     * @return La altura del nodo, si el nodo es NULO devuelve -1
+     */
+    private int altura(int n) {
+        return n == NULO ? -1 : alturas[n];
+    }
+
+    /**
+     * Método para actualizar la altura de cierto nodo a partir de la de sus hijos
+     *
+     * @param n La posición del nodo a actualizar
+     */
+    private void actualizarAltura(int n) {
+        alturas[n] = (byte) (1 + Math.max(altura(izquierda[n]), altura(derecha[n])));
+    }
+
+    /**
+     * Método para reservar la posición de un nuevo nodo, reutilizando las posiciones
+     * libres antes de crecer los arreglos
+     *
+     * @param clave El índice de la carta que guardará el nodo
+     * @return La posición del nuevo nodo
+     */
+    private int nuevoNodo(int clave) {
+        int nodo;
+        if (libre != NULO) {
+            nodo = libre;
+            libre = izquierda[nodo];
+        } else {
+            if (usados == claves.length) {
+                int capacidad = claves.length * 2;
+                claves = Arrays.copyOf(claves, capacidad);
+                alturas = Arrays.copyOf(alturas, capacidad);
+                izquierda = Arrays.copyOf(izquierda, capacidad);
+                derecha = Arrays.copyOf(derecha, capacidad);
+            }
+            nodo = usados++;
+        }
+        claves[nodo] = (byte) clave;
+        alturas[nodo] = 0;
+        izquierda[nodo] = NULO;
+        derecha[nodo] = NULO;
+        cantidad++;
+        return nodo;
+    }
+
+    /**
+     * Método para devolver la posición de un nodo eliminado a la lista de libres
+     *
+     * @param nodo La posición del nodo eliminado
+     */
+    private void liberarNodo(int nodo) {
+        izquierda[nodo] = libre;
+        libre = nodo;
+        cantidad--;
+    }
+
+    /**
+     * Método para realizar una rotación simple a la derecha dentro del arbol
+     *
+     * @param nodo El nodo desde el cual se quiere hacer la rotación
+     * @return el nuevo nodo padre luego de haber hecho la rotación
+     */
+    private int rotacionDerecha(int nodo) {
+        int padre = izquierda[nodo];
+        izquierda[nodo] = derecha[padre];
+        derecha[padre] = nodo;
+        actualizarAltura(nodo);
+        actualizarAltura(padre);
+        return padre;
+    }
+
+    /**
+     * Método para realizar una rotación simple a la izquierda dentro del arbol
+     *
+     * @param nodo El nodo desde el cual se quiere hacer la rotación
+     * @return el nuevo nodo padre luego de haber hecho la rotación
+     */
+    private int rotacionIzquierda(int nodo) {
+        int padre = derecha[nodo];
+        derecha[nodo] = izquierda[padre];
+        izquierda[padre] = nodo;
+        actualizarAltura(nodo);
+        actualizarAltura(padre);
+        return padre;
+    }
+
+    /**
+     * Método para rebalancear un nodo luego de alguna eliminación o inserción
+     *
+     * @param nodo El nodo desde el cual se comenzará a realizar el rebalanceo
+     * @return El nodo luego de haber realizado rotaciones de ser necesarias
+     */
+    private int rebalancear(int nodo) {
+        actualizarAltura(nodo);
+        int fe = altura(derecha[nodo]) - altura(izquierda[nodo]);
+        if (fe > 1) {
+            int hijo = derecha[nodo];
+            if (altura(derecha[hijo]) < altura(izquierda[hijo])) {
+                derecha[nodo] = rotacionDerecha(hijo);
+            }
+            nodo = rotacionIzquierda(nodo);
+        } else if (fe < -1) {
+            int hijo = izquierda[nodo];
+            if (altura(izquierda[hijo]) < altura(derecha[hijo])) {
+                izquierda[nodo] = rotacionIzquierda(hijo);
+            }
+            nodo = rotacionDerecha(nodo);
+        }
+        return nodo;
+    }
+
+    /**
+     * Método recursivo para realizar una inserción en el arbol. El hijo se calcula antes
+     * de asignarlo porque la inserción puede reemplazar los arreglos al crecer.
+     *
+     * @param nodo  El nodo desde el cual se realizará la inserción
+     * @param clave El índice de la carta que se va a insertar
+     * @return El nodo donde se insertó luego de aplicarle un rebalanceo
+     */
+    private int insertar(int nodo, int clave) {
+        if (nodo == NULO) {
+            return nuevoNodo(clave);
+        } else if (claves[nodo] > clave) {
+            int hijo = insertar(izquierda[nodo], clave);
+            izquierda[nodo] = hijo;
+        } else {
+            int hijo = insertar(derecha[nodo], clave);
+            derecha[nodo] = hijo;
+        }
+        return rebalancear(nodo);
+    }
+
+    /**
+     * Método recursivo para eliminar un nodo del arbol. Igual que en ArbolAVL solo se
+     * eliminan nodos con a lo sumo un hijo.
+     *
+     * @param nodo  El nodo desde el cual se comenzará a eliminar
+     * @param clave El índice de la carta que se quiere eliminar
+     * @return El nodo final luego de haber completado la eliminación
+     */
+    private int eliminar(int nodo, int clave) {
+        if (nodo == NULO) {
+            return nodo;
+        } else if (claves[nodo] > clave) {
+            izquierda[nodo] = eliminar(izquierda[nodo], clave);
+        } else if (claves[nodo] < clave) {
+            derecha[nodo] = eliminar(derecha[nodo], clave);
+        } else if (izquierda[nodo] == NULO || derecha[nodo] == NULO) {
+            int hijo = izquierda[nodo] == NULO ? derecha[nodo] : izquierda[nodo];
+            liberarNodo(nodo);
+            return hijo;
+        }
+        return rebalancear(nodo);
+    }
+
+    /**
+     * Método recursivo para construir el subárbol balanceado de un rango de cartas ordenadas
+     *
+     * @param ordenadas Las cartas ordenadas por total
+     * @param inicio    La primera posición del rango
+     * @param fin       La última posición del rango
+     * @return La raíz del subárbol, NULO si el rango está vacío
+     */
+    private int construir(Carta[] ordenadas, int inicio, int fin) {
+        if (inicio > fin) {
+            return NULO;
+        }
+        int medio = (inicio + fin) >>> 1;
+        int nodo = usados++;
+        claves[nodo] = (byte) ordenadas[medio].getIndice();
+        izquierda[nodo] = construir(ordenadas, inicio, medio - 1);
+        derecha[nodo] = construir(ordenadas, medio + 1, fin);
+        actualizarAltura(nodo);
+        return nodo;
+    }
+
+    /**
+     * Método recursivo para obtener el recorrido inOrder del arbol
+     *
+     * @param nodo     El nodo desde el cual se comenzará a hacer el recorrido
+     * @param cartas   El arreglo en el que se guardan las cartas
+     * @param posicion La posición del arreglo en la que se guarda la siguiente carta
+     * @return La posición siguiente a la última carta guardada
+     */
+    private int inOrder(int nodo, Carta[] cartas, int posicion) {
+        if (nodo == NULO) {
+            return posicion;
+        }
+        posicion = inOrder(izquierda[nodo], cartas, posicion);
+        cartas[posicion++] = Carta.desdeIndice(claves[nodo]);
+        return inOrder(derecha[nodo], cartas, posicion);
+    }
+
+    /**
+     * Método recursivo para obtener el recorrido preOrder del arbol
+     *
+     * @param nodo     El nodo desde el cual se comenzará a hacer el recorrido
+     * @param cartas   El arreglo en el que se guardan las cartas
+     * @param posicion La posición del arreglo en la que se guarda la siguiente carta
+     * @return La posición siguiente a la última carta guardada
+     */
+    private int preOrder(int nodo, Carta[] cartas, int posicion) {
+        if (nodo == NULO) {
+            return posicion;
+        }
+        cartas[posicion++] = Carta.desdeIndice(claves[nodo]);
+        posicion = preOrder(izquierda[nodo], cartas, posicion);
+        return preOrder(derecha[nodo], cartas, posicion);
+    }
+
+    /**
+     * Método recursivo para obtener el recorrido postOrder del arbol
+     *
+     * @param nodo     El nodo desde el cual se comenzará a hacer el recorrido
+     * @param cartas   El arreglo en el que se guardan las cartas
+     * @param posicion La posición del arreglo en la que se guarda la siguiente carta
+     * @return La posición siguiente a la última carta guardada
+     */
+    private int posOrder(int nodo, Carta[] cartas, int posicion) {
+        if (nodo == NULO) {
+            return posicion;
+        }
+        posicion = posOrder(izquierda[nodo], cartas, posicion);
+        posicion = posOrder(derecha[nodo], cartas, posicion);
+        cartas[posicion++] = Carta.desdeIndice(claves[nodo]);
+        return posicion;
+    }
+
+    /**
+     * Método recursivo para obtener las Cartas de un nivel específico
+     *
+     * @param nodo     el nodo desde el cual se comenzará a recorrer el arbol
+     * @param cartas   El arreglo en el que se guardan las cartas
+     * @param posicion La posición del arreglo en la que se guarda la siguiente carta
+     * @param altura   La altura que se lleva recorrida del arbol
+     * @param limit    La altura limite en la cual se ecuentran las cartas de interés
+     * @return La posición siguiente a la última carta guardada
+     */
+    private int getNivel(int nodo, Carta[] cartas, int posicion, int altura, int limit) {
+        if (nodo == NULO) {
+            return posicion;
+        }
+        if (altura == limit) {
+            cartas[posicion++] = Carta.desdeIndice(claves[nodo]);
+            return posicion;
+        }
+        posicion = getNivel(izquierda[nodo], cartas, posicion, altura + 1, limit);
+        return getNivel(derecha[nodo], cartas, posicion, altura + 1, limit);
+    }
+}
@@ -0,0 +1,365 @@
+/**
+ * @file GraficoArbol.java
+ * @author 202030799 Manuel Rojas
+ * @brief Clase para dibujar el ArbolAVL sin depender de graphviz
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.data_structures;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import com.mrojas.cartas.data_structures.ArbolAVL.Nodo;
+
+/**
+ * Clase que calcula la disposición de un árbol y la dibuja en memoria, ya sea como
+ * imagen rasterizada o como SVG. La columna de cada nodo es su posición en el recorrido
+ * inOrder y la fila es su profundidad, de modo que dos nodos nunca se enciman: entre dos
+ * nodos del mismo nivel siempre queda su ancestro común. Los nodos con hijos se dibujan
+ * como registros de tres celdas, igual que lo hacía graphviz, y las aristas salen de la
+ * celda del lado del hijo.
+ */
+public class GraficoArbol {
+    /**
+     * Distancia horizontal entre dos columnas consecutivas
+     */
+    private static final int COLUMNA = 44;
+    /**
+     * Distancia vertical entre dos niveles
+     */
+    private static final int FILA = 72;
+    /**
+     * Espacio libre alrededor del dibujo
+     */
+    private static final int MARGEN = 16;
+    /**
+     * Ancho de la celda central, donde va la carta
+     */
+    private static final int ANCHO_DATO = 40;
+    /**
+     * Ancho de las celdas laterales de los nodos con hijos
+     */
+    private static final int ANCHO_PUERTO = 16;
+    /**
+     * Alto de cada nodo
+     */
+    private static final int ALTO = 28;
+    /**
+     * Largo de la punta de flecha de las aristas
+     */
+    private static final int FLECHA = 8;
+    private static final String RELLENO = "#8b7bc3";
+    private static final Color COLOR_RELLENO = Color.decode(RELLENO);
+    private static final Font FUENTE = new Font(Font.SANS_SERIF, Font.PLAIN, 14);
+
+    /**
+     * Los nodos en el orden del recorrido inOrder, el índice es su columna
+     */
+    private final Nodo[] nodos;
+    /**
+     * La profundidad de cada nodo
+     */
+    private final int[] niveles;
+    /**
+     * La columna del padre de cada nodo, -1 para la raíz
+     */
+    private final int[] padres;
+    private final int ancho;
+    private final int alto;
+
+    /**
+     * La siguiente columna libre mientras se calcula la disposición
+     */
+    private int siguiente;
+
+    /**
+     * Constructor de la clase GraficoArbol, calcula la disposición de los nodos
+     *
+     * @param raiz La raíz del árbol a dibujar
+     */
+    GraficoArbol(Nodo raiz) {
+        int cantidad = Nodo.tamano(raiz);
+        nodos = new Nodo[cantidad];
+        niveles = new int[cantidad];
+        padres = new int[cantidad];
+        int columnaRaiz = ubicar(raiz, 0);
+        if (columnaRaiz >= 0) {
+            padres[columnaRaiz] = -1;
+        }
+        int profundidad = raiz == null ? 0 : raiz.altura + 1;
+        ancho = 2 * MARGEN + Math.max(cantidad - 1, 0) * COLUMNA + ANCHO_DATO + 2 * ANCHO_PUERTO;
+        alto = 2 * MARGEN + Math.max(profundidad - 1, 0) * FILA + ALTO;
+    }
+
+    /**
+     * Método recursivo que asigna columna y nivel a cada nodo del subárbol siguiendo
+     * el recorrido inOrder
+     *
+     * @param nodo  La raíz del subárbol
+     * @param nivel La profundidad del nodo
+     * @return La columna asignada a la raíz del subárbol, -1 si el subárbol está vacío
+     */
+    private int ubicar(Nodo nodo, int nivel) {
+        if (nodo == null) {
+            return -1;
+        }
+        int izquierdo = ubicar(nodo.izquierda, nivel + 1);
+        int propia = siguiente++;
+        nodos[propia] = nodo;
+        niveles[propia] = nivel;
+        int derecho = ubicar(nodo.derecha, nivel + 1);
+        if (izquierdo >= 0) {
+            padres[izquierdo] = propia;
+        }
+        if (derecho >= 0) {
+            padres[derecho] = propia;
+        }
+        return propia;
+    }
+
+    /**
+     * Método para obtener el ancho del dibujo
+     *
+     * @return El ancho en pixeles
+     */
+    public int getAncho() {
+        return ancho;
+    }
+
+    /**
+     * Método para obtener el alto del dibujo
+     *
+     * @return El alto en pixeles
+     */
+    public int getAlto() {
+        return alto;
+    }
+
+    /**
+     * Método para obtener el centro horizontal de la columna
+     *
+     * @param columna La columna del nodo
+     * @return La coordenada x del centro
+     */
+    private static int centroX(int columna) {
+        return MARGEN + ANCHO_PUERTO + ANCHO_DATO / 2 + columna * COLUMNA;
+    }
+
+    /**
+     * Método para obtener el borde superior de los nodos del nivel
+     *
+     * @param nivel La profundidad del nodo
+     * @return La coordenada y del borde superior
+     */
+    private static int superiorY(int nivel) {
+        return MARGEN + nivel * FILA;
+    }
+
+    /**
+     * Método para saber si el nodo se dibuja como registro de tres celdas
+     *
+     * @param columna La columna del nodo
+     * @return true si el nodo tiene al menos un hijo
+     */
+    private boolean tieneHijos(int columna) {
+        return nodos[columna].izquierda != null || nodos[columna].derecha != null;
+    }
+
+    /**
+     * Método para obtener la coordenada x de donde sale la arista hacia un hijo
+     *
+     * @param padre La columna del padre
+     * @param hijo  La columna del hijo
+     * @return El centro de la celda del lado del hijo
+     */
+    private int puertoX(int padre, int hijo) {
+        int desplazamiento = (ANCHO_DATO + ANCHO_PUERTO) / 2;
+        return centroX(padre) + (hijo < padre ? -desplazamiento : desplazamiento);
+    }
+
+    /**
+     * Método para obtener la punta de flecha de una arista que va de (x1, y1) a (x2, y2)
+     *
+     * @return Los tres vértices, alternando x y y
+     */
+    private static int[] flecha(int x1, int y1, int x2, int y2) {
+        double angulo = Math.atan2(y2 - y1, x2 - x1);
+        double abertura = Math.PI / 7;
+        return new int[] { x2, y2,
+                (int) Math.round(x2 - FLECHA * Math.cos(angulo - abertura)),
+                (int) Math.round(y2 - FLECHA * Math.sin(angulo - abertura)),
+                (int) Math.round(x2 - FLECHA * Math.cos(angulo + abertura)),
+                (int) Math.round(y2 - FLECHA * Math.sin(angulo + abertura)) };
+    }
+
+    /**
+     * Método que dibuja el árbol sobre una imagen en memoria
+     *
+     * @return La imagen con el árbol
+     */
+    public BufferedImage rasterizar() {
+        BufferedImage imagen = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+        Graphics2D grafico = imagen.createGraphics();
+        try {
+            grafico.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            grafico.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            grafico.setColor(Color.WHITE);
+            grafico.fillRect(0, 0, ancho, alto);
+            grafico.setStroke(new BasicStroke(1f));
+            grafico.setFont(FUENTE);
+            FontMetrics metricas = grafico.getFontMetrics();
+            grafico.setColor(Color.BLACK);
+            for (int i = 0; i < nodos.length; i++) {
+                if (padres[i] < 0) {
+                    continue;
+                }
+                int x1 = puertoX(padres[i], i);
+                int y1 = superiorY(niveles[padres[i]]) + ALTO / 2;
+                int x2 = centroX(i);
+                int y2 = superiorY(niveles[i]);
+                grafico.drawLine(x1, y1, x2, y2);
+                int[] punta = flecha(x1, y1, x2, y2);
+                grafico.fillPolygon(new Polygon(
+                        new int[] { punta[0], punta[2], punta[4] },
+                        new int[] { punta[1], punta[3], punta[5] }, 3));
+            }
+            for (int i = 0; i < nodos.length; i++) {
+                int x = centroX(i) - ANCHO_DATO / 2;
+                int y = superiorY(niveles[i]);
+                int izquierdo = x;
+                int total = ANCHO_DATO;
+                if (tieneHijos(i)) {
+                    izquierdo -= ANCHO_PUERTO;
+                    total += 2 * ANCHO_PUERTO;
+                }
+                grafico.setColor(COLOR_RELLENO);
+                grafico.fillRect(izquierdo, y, total, ALTO);
+                grafico.setColor(Color.BLACK);
+                grafico.drawRect(izquierdo, y, total, ALTO);
+                if (tieneHijos(i)) {
+                    grafico.drawLine(x, y, x, y + ALTO);
+                    grafico.drawLine(x + ANCHO_DATO, y, x + ANCHO_DATO, y + ALTO);
+                }
+                String texto = nodos[i].dato.toString();
+                grafico.drawString(texto, centroX(i) - metricas.stringWidth(texto) / 2,
+                        y + (ALTO - metricas.getHeight()) / 2 + metricas.getAscent());
+            }
+        } finally {
+            grafico.dispose();
+        }
+        return imagen;
+    }
+
+    /**
+     * Método que dibuja el árbol y lo codifica en el formato indicado. La codificación
+     * se hace sobre un flujo en memoria para que ImageIO no cree archivos temporales.
+     *
+     * @param formato El nombre del formato de imagen, por ejemplo jpg o png
+     * @param salida  El flujo en el que se escribe la imagen
+     * @throws IOException Si no se puede escribir en el flujo o el formato no es soportado
+     */
+    public void escribirImagen(String formato, OutputStream salida) throws IOException {
+        Iterator<ImageWriter> codificadores = ImageIO.getImageWritersByFormatName(formato);
+        if (!codificadores.hasNext()) {
+            throw new IOException("No hay un codificador para el formato ".concat(formato));
+        }
+        ImageWriter codificador = codificadores.next();
+        try (ImageOutputStream flujo = new MemoryCacheImageOutputStream(salida)) {
+            codificador.setOutput(flujo);
+            codificador.write(rasterizar());
+        } finally {
+            codificador.dispose();
+        }
+    }
+
+    /**
+     * Método que escribe el código de graphviz del árbol en una sola pasada. Los nodos se
+     * emiten en el orden inOrder, que también es el orden de izquierda a derecha de cada
+     * nivel, y cada nodo se identifica por su columna.
+     *
+     * @param salida El destino del código
+     * @throws IOException Si no se puede escribir en el destino
+     */
+    public void escribirDot(Writer salida) throws IOException {
+        salida.write("digraph grafica{\n");
+        salida.write("rankdir=TB;\n");
+        salida.write("node [shape = record, style=filled, fillcolor=\"" + RELLENO + "\"];\n");
+        for (int i = 0; i < nodos.length; i++) {
+            salida.write("nodo");
+            salida.write(Integer.toString(i));
+            salida.write(tieneHijos(i) ? " [ label =\"<C0>|" : " [ label =\"");
+            salida.write(nodos[i].dato.toString());
+            salida.write(tieneHijos(i) ? "|<C1>\"];\n" : "\"];\n");
+            if (padres[i] >= 0) {
+                salida.write("nodo");
+                salida.write(Integer.toString(padres[i]));
+                salida.write(i < padres[i] ? ":C0->nodo" : ":C1->nodo");
+                salida.write(Integer.toString(i));
+                salida.write("\n");
+            }
+        }
+        salida.write("}\n");
+    }
+
+    /**
+     * Método que escribe el árbol como un documento SVG
+     *
+     * @param salida El destino del documento
+     * @throws IOException Si no se puede escribir en el destino
+     */
+    public void escribirSvg(Writer salida) throws IOException {
+        salida.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + ancho + "\" height=\"" + alto
+                + "\" viewBox=\"0 0 " + ancho + " " + alto + "\">\n");
+        salida.write("<rect width=\"100%\" height=\"100%\" fill=\"white\"/>\n");
+        salida.write("<g stroke=\"black\" fill=\"black\">\n");
+        for (int i = 0; i < nodos.length; i++) {
+            if (padres[i] < 0) {
+                continue;
+            }
+            int x1 = puertoX(padres[i], i);
+            int y1 = superiorY(niveles[padres[i]]) + ALTO / 2;
+            int x2 = centroX(i);
+            int y2 = superiorY(niveles[i]);
+            int[] punta = flecha(x1, y1, x2, y2);
+            salida.write("<line x1=\"" + x1 + "\" y1=\"" + y1 + "\" x2=\"" + x2 + "\" y2=\"" + y2 + "\"/>");
+            salida.write("<polygon points=\"" + punta[0] + "," + punta[1] + " " + punta[2] + "," + punta[3]
+                    + " " + punta[4] + "," + punta[5] + "\"/>\n");
+        }
+        salida.write("</g>\n");
+        salida.write("<g stroke=\"black\" font-family=\"sans-serif\" font-size=\"14\" text-anchor=\"middle\">\n");
+        for (int i = 0; i < nodos.length; i++) {
+            int x = centroX(i) - ANCHO_DATO / 2;
+            int y = superiorY(niveles[i]);
+            if (tieneHijos(i)) {
+                salida.write("<rect x=\"" + (x - ANCHO_PUERTO) + "\" y=\"" + y + "\" width=\""
+                        + (ANCHO_DATO + 2 * ANCHO_PUERTO) + "\" height=\"" + ALTO + "\" fill=\"" + RELLENO + "\"/>");
+                salida.write("<path d=\"M" + x + " " + y + "v" + ALTO + "M" + (x + ANCHO_DATO) + " " + y + "v"
+                        + ALTO + "\"/>");
+            } else {
+                salida.write("<rect x=\"" + x + "\" y=\"" + y + "\" width=\"" + ANCHO_DATO + "\" height=\"" + ALTO
+                        + "\" fill=\"" + RELLENO + "\"/>");
+            }
+            salida.write("<text x=\"" + centroX(i) + "\" y=\"" + (y + ALTO / 2) + "\" stroke=\"none\""
+                    + " dominant-baseline=\"central\">" + nodos[i].dato + "</text>\n");
+        }
+        salida.write("</g>\n</svg>\n");
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * @file Recorrido.java
+ * @author 202030799 Manuel Rojas
+ * @brief Clase para representar los tipos de recorrido del ArbolAVL
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.data_structures;
+
+/**
+ * Enum creado para definir los recorridos que se pueden hacer sobre el árbol
+ */
+public enum Recorrido {
+    /**
+     * Recorrido izquierda, raíz, derecha; devuelve las cartas ordenadas por su total
+     */
+    IN_ORDER("inOrder"),
+    /**
+     * Recorrido raíz, izquierda, derecha
+     */
+    PRE_ORDER("preOrder"),
+    /**
+     * Recorrido izquierda, derecha, raíz
+     */
+    POST_ORDER("postOrder");
+
+    /**
+     * El nombre con el que se solicita el recorrido en la API
+     */
+    private final String nombre;
+
+    /**
+     * Constructor de la clase Recorrido
+     * @param nombre El nombre con el que se solicita el recorrido
+     */
+    private Recorrido(String nombre) {
+        this.nombre = nombre;
+    }
+
+    /**
+     * Método para obtener el recorrido a partir del nombre con el que se solicita en la API
+     * @param nombre El nombre del recorrido
+     * @return El recorrido correspondiente, null si el nombre no corresponde a ninguno
+     */
+    public static Recorrido desdeNombre(String nombre) {
+        for (Recorrido recorrido : values()) {
+            if (recorrido.nombre.equals(nombre)) {
+                return recorrido;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return nombre;
+    }
+}
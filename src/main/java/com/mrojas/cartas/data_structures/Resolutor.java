@@ -0,0 +1,464 @@
+/**
+ * @file Resolutor.java
+ * @author 202030799 Manuel Rojas
+ * @brief Clase para decidir si una baraja se puede vaciar por completo
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.data_structures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.mrojas.cartas.data_structures.ArbolAVL.Nodo;
+import com.mrojas.cartas.models.Carta;
+
+/**
+ * Clase que busca una secuencia de jugadas que vacíe la baraja, eliminando en cada jugada
+ * una K que sea hoja o dos hojas cuyo valor sume 13.
+ *
+ * Cada estado de la búsqueda es la raíz inmutable de un ArbolAVL, por lo que los estados
+ * hijos comparten casi todos sus nodos con el padre, no hace falta deshacer jugadas y varios
+ * hilos pueden explorar el mismo árbol. Como la forma del árbol depende del orden en que se
+ * eliminaron las cartas, el estado se identifica por la huella de la forma, que incluye las
+ * cartas presentes. Los estados sin salida se guardan en una tabla de transposición sin
+ * cerrojos que se comparte entre búsquedas, ya que un estado sin salida lo es sin importar
+ * de qué partida provenga. Cuando las casillas de un estado están ocupadas se reemplaza el
+ * estado con menos cartas, cuya búsqueda es la más barata de repetir, siempre que no tenga
+ * más cartas que el nuevo; así la tabla no se congela con los primeros estados que la
+ * llenan. Los primeros niveles se reparten en un ForkJoinPool.
+ *
+ * Cada K se elimina sola y toda otra carta se elimina en pareja, por lo que cualquier
+ * secuencia que vacíe la baraja tiene la misma cantidad de jugadas y la primera que se
+ * encuentra es óptima.
+ */
+public class Resolutor {
+    /**
+     * Resultado posible de una búsqueda
+     */
+    public enum Veredicto {
+        /**
+         * Se encontró una secuencia que vacía la baraja
+         */
+        RESOLUBLE,
+        /**
+         * Se exploraron todos los estados y ninguno vacía la baraja
+         */
+        IRRESOLUBLE,
+        /**
+         * Se alcanzó el límite de estados o de tiempo antes de decidir
+         */
+        DESCONOCIDO
+    }
+
+    /**
+     * Índice de presencia de las cartas de cada valor, indexado por el valor
+     */
+    private static final long[] POR_VALOR = new long[Carta.CARTAS_POR_TIPO + 1];
+    /**
+     * Cantidad de niveles de la búsqueda que se reparten como tareas independientes
+     */
+    private static final int NIVELES_PARALELOS = 2;
+    /**
+     * Cantidad de estados que una tarea explora antes de sumarlos al contador compartido
+     */
+    private static final int LOTE_CONTEO = 1024;
+    /**
+     * Cantidad de casillas contiguas que se revisan al buscar o guardar una huella
+     */
+    private static final int SONDEOS = 8;
+    /**
+     * Bits bajos de cada casilla en los que se guarda la cantidad de cartas del estado
+     */
+    private static final long BITS_CARTAS = 0x3FL;
+
+    static {
+        for (int indice = 0; indice < Carta.TOTAL_CARTAS; indice++) {
+            POR_VALOR[Carta.desdeIndice(indice).getValor()] |= 1L << indice;
+        }
+    }
+
+    /**
+     * Tabla de transposición con los estados sin salida, cada casilla tiene la huella del
+     * estado con su cantidad de cartas en los bits bajos, 0 es casilla libre
+     */
+    private final AtomicLongArray sinSalida;
+    private final int mascaraTabla;
+    private final ForkJoinPool hilos;
+
+    /**
+     * Constructor de la clase Resolutor
+     *
+     * @param bitsTabla El logaritmo en base 2 de la cantidad de casillas de la tabla de
+     *                  transposición, cada casilla ocupa 8 bytes
+     * @param hilos     El pool en el que se reparte la búsqueda
+     */
+    public Resolutor(int bitsTabla, ForkJoinPool hilos) {
+        sinSalida = new AtomicLongArray(1 << bitsTabla);
+        mascaraTabla = (1 << bitsTabla) - 1;
+        this.hilos = hilos;
+    }
+
+    /**
+     * Método para buscar una secuencia de jugadas que vacíe la baraja. La búsqueda se
+     * envía al pool y se espera como máximo el tiempo indicado; al vencer, las tareas que
+     * sigan en curso o en cola se detienen en el siguiente estado que revisen.
+     *
+     * @param baraja La baraja a resolver, se usa la versión que tiene al llamar al método
+     * @param limite La cantidad máxima de estados a explorar
+     * @param tiempo Los milisegundos que se espera la búsqueda
+     * @return El resultado de la búsqueda
+     */
+    public Solucion resolver(ArbolAVL baraja, long limite, long tiempo) {
+        Nodo raiz = baraja.getRaiz();
+        if (raiz == null) {
+            return new Solucion(Veredicto.RESOLUBLE, new ArrayList<>(), 0);
+        }
+        long cartas = raiz.mascara;
+        for (int valor = 1; valor <= 6; valor++) {
+            // Cada carta necesita una pareja de valor complementario
+            if (Long.bitCount(cartas & POR_VALOR[valor]) != Long.bitCount(cartas & POR_VALOR[13 - valor])) {
+                return new Solucion(Veredicto.IRRESOLUBLE, new ArrayList<>(), 0);
+            }
+        }
+        Busqueda busqueda = new Busqueda(limite);
+        ForkJoinTask<Void> tarea = hilos.submit(new Tarea(busqueda, raiz, new int[raiz.tamano], 0));
+        try {
+            tarea.get(tiempo, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            busqueda.agotada = true;
+        } catch (InterruptedException e) {
+            busqueda.agotada = true;
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        int[] camino = busqueda.solucion.get();
+        if (camino != null) {
+            List<Carta[]> jugadas = new ArrayList<>(camino.length);
+            for (int jugada : camino) {
+                jugadas.add(decodificar(jugada));
+            }
+            return new Solucion(Veredicto.RESOLUBLE, jugadas, busqueda.explorados.get());
+        }
+        Veredicto veredicto = busqueda.agotada ? Veredicto.DESCONOCIDO : Veredicto.IRRESOLUBLE;
+        return new Solucion(veredicto, new ArrayList<>(), busqueda.explorados.get());
+    }
+
+    /**
+     * Método para codificar una jugada en un entero con el índice de cada carta
+     *
+     * @param primera El índice de la primera carta
+     * @param segunda El índice de la segunda carta, -1 si la jugada es de una sola carta
+     * @return La jugada codificada
+     */
+    private static int codificar(int primera, int segunda) {
+        return (primera << 8) | (segunda + 1);
+    }
+
+    /**
+     * Método para obtener las cartas de una jugada codificada
+     *
+     * @param jugada La jugada codificada
+     * @return Las cartas de la jugada
+     */
+    private static Carta[] decodificar(int jugada) {
+        Carta primera = Carta.desdeIndice(jugada >>> 8);
+        int segunda = (jugada & 0xFF) - 1;
+        return segunda < 0 ? new Carta[] { primera } : new Carta[] { primera, Carta.desdeIndice(segunda) };
+    }
+
+    /**
+     * Método para obtener el valor con el que se guarda un estado en la tabla
+     *
+     * @param estado El estado
+     * @return La huella del estado con su cantidad de cartas en los bits bajos
+     */
+    private static long getCasilla(Nodo estado) {
+        return (estado.huella & ~BITS_CARTAS) | estado.tamano;
+    }
+
+    /**
+     * Método para obtener la primera casilla que se revisa al buscar un estado
+     *
+     * @param estado El estado
+     * @return La posición de la primera casilla, sin acotar al tamaño de la tabla
+     */
+    private static int getInicio(Nodo estado) {
+        return (int) (estado.huella ^ (estado.huella >>> 32));
+    }
+
+    /**
+     * Método para saber si un estado ya se sabe sin salida. Las casillas nunca se
+     * vacían, solo se reemplazan, por lo que la búsqueda se detiene en la primera libre.
+     *
+     * @param estado El estado
+     * @return true si el estado está en la tabla de transposición
+     */
+    private boolean esSinSalida(Nodo estado) {
+        long buscada = getCasilla(estado);
+        int inicio = getInicio(estado);
+        for (int sondeo = 0; sondeo < SONDEOS; sondeo++) {
+            long guardada = sinSalida.get((inicio + sondeo) & mascaraTabla);
+            if (guardada == buscada) {
+                return true;
+            }
+            if (guardada == 0L) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Método para guardar un estado sin salida. Si las casillas de su vecindad están
+     * ocupadas se reemplaza la del estado con menos cartas, siempre que no tenga más que
+     * el nuevo; si otro hilo la cambia mientras tanto el estado simplemente no se guarda.
+     *
+     * @param estado El estado
+     */
+    private void marcarSinSalida(Nodo estado) {
+        long nueva = getCasilla(estado);
+        int inicio = getInicio(estado);
+        int reemplazo = -1;
+        long reemplazada = 0L;
+        for (int sondeo = 0; sondeo < SONDEOS; sondeo++) {
+            int casilla = (inicio + sondeo) & mascaraTabla;
+            long guardada = sinSalida.get(casilla);
+            if (guardada == nueva || (guardada == 0L && sinSalida.compareAndSet(casilla, 0L, nueva))) {
+                return;
+            }
+            if ((guardada & BITS_CARTAS) <= estado.tamano
+                    && (reemplazo < 0 || (guardada & BITS_CARTAS) < (reemplazada & BITS_CARTAS))) {
+                reemplazo = casilla;
+                reemplazada = guardada;
+            }
+        }
+        if (reemplazo >= 0) {
+            sinSalida.compareAndSet(reemplazo, reemplazada, nueva);
+        }
+    }
+
+    /**
+     * Resultado de una búsqueda
+     */
+    public static final class Solucion {
+        private final Veredicto veredicto;
+        private final List<Carta[]> jugadas;
+        private final long explorados;
+
+        /**
+         * Constructor de la clase Solucion
+         *
+         * @param veredicto  El resultado de la búsqueda
+         * @param jugadas    Las jugadas que vacían la baraja, vacía si no se encontraron
+         * @param explorados La cantidad de estados explorados
+         */
+        Solucion(Veredicto veredicto, List<Carta[]> jugadas, long explorados) {
+            this.veredicto = veredicto;
+            this.jugadas = jugadas;
+            this.explorados = explorados;
+        }
+
+        /**
+         * Método para obtener el resultado de la búsqueda
+         *
+         * @return El veredicto de la búsqueda
+         */
+        public Veredicto getVeredicto() {
+            return veredicto;
+        }
+
+        /**
+         * Método para obtener las jugadas que vacían la baraja, en orden
+         *
+         * @return Las jugadas, cada una con una o dos cartas
+         */
+        public List<Carta[]> getJugadas() {
+            return jugadas;
+        }
+
+        /**
+         * Método para obtener la cantidad de estados que se exploraron
+         *
+         * @return La cantidad de estados explorados
+         */
+        public long getExplorados() {
+            return explorados;
+        }
+    }
+
+    /**
+     * Estado compartido por las tareas de una misma búsqueda
+     */
+    private static final class Busqueda {
+        private final long limite;
+        private final AtomicLong explorados = new AtomicLong();
+        private final AtomicReference<int[]> solucion = new AtomicReference<>();
+        /**
+         * true si la búsqueda se detuvo por alcanzar el límite de estados o de tiempo
+         */
+        private volatile boolean agotada;
+
+        Busqueda(long limite) {
+            this.limite = limite;
+        }
+
+        /**
+         * Método para saber si las tareas deben dejar de explorar
+         *
+         * @return true si ya hay una solución o se alcanzó el límite
+         */
+        boolean terminada() {
+            return agotada || solucion.get() != null;
+        }
+    }
+
+    /**
+     * Tarea que explora los estados que se alcanzan desde una raíz. En los primeros niveles
+     * cada jugada se explora en una tarea propia, después la exploración es secuencial en
+     * profundidad sobre un solo arreglo con el camino recorrido.
+     */
+    private final class Tarea extends RecursiveAction {
+        private final Busqueda busqueda;
+        private final Nodo raiz;
+        private final int[] camino;
+        private final int largo;
+        /**
+         * Estados explorados que todavía no se suman al contador compartido
+         */
+        private int pendientes;
+
+        /**
+         * Constructor de la tarea
+         *
+         * @param busqueda La búsqueda a la que pertenece
+         * @param raiz     El estado desde el que explora
+         * @param camino   Las jugadas que llevaron al estado, la tarea es dueña del arreglo
+         * @param largo    La cantidad de jugadas que llevaron al estado
+         */
+        Tarea(Busqueda busqueda, Nodo raiz, int[] camino, int largo) {
+            this.busqueda = busqueda;
+            this.raiz = raiz;
+            this.camino = camino;
+            this.largo = largo;
+        }
+
+        @Override
+        protected void compute() {
+            if (largo >= NIVELES_PARALELOS || raiz == null) {
+                explorar(raiz, largo);
+                contar();
+                return;
+            }
+            if (busqueda.terminada() || esSinSalida(raiz)) {
+                return;
+            }
+            pendientes++;
+            contar();
+            List<Tarea> subtareas = new ArrayList<>();
+            long hojas = raiz.hojas;
+            for (long reyes = hojas & POR_VALOR[13]; reyes != 0; reyes &= reyes - 1) {
+                int rey = Long.numberOfTrailingZeros(reyes);
+                subtareas.add(subtarea(codificar(rey, -1), Carta.desdeIndice(rey), null));
+            }
+            for (int valor = 1; valor <= 6; valor++) {
+                long complementos = hojas & POR_VALOR[13 - valor];
+                for (long menores = hojas & POR_VALOR[valor]; menores != 0 && complementos != 0; menores &= menores - 1) {
+                    int menor = Long.numberOfTrailingZeros(menores);
+                    for (long mayores = complementos; mayores != 0; mayores &= mayores - 1) {
+                        int mayor = Long.numberOfTrailingZeros(mayores);
+                        subtareas.add(subtarea(codificar(menor, mayor), Carta.desdeIndice(menor), Carta.desdeIndice(mayor)));
+                    }
+                }
+            }
+            invokeAll(subtareas);
+            if (!busqueda.terminada()) {
+                marcarSinSalida(raiz);
+            }
+        }
+
+        /**
+         * Método para crear la tarea que explora el estado que deja una jugada
+         *
+         * @param jugada  La jugada codificada
+         * @param primera La primera carta a eliminar
+         * @param segunda La segunda carta a eliminar, null si la jugada es de una carta
+         * @return La tarea del estado siguiente
+         */
+        private Tarea subtarea(int jugada, Carta primera, Carta segunda) {
+            int[] siguiente = Arrays.copyOf(camino, camino.length);
+            siguiente[largo] = jugada;
+            return new Tarea(busqueda, ArbolAVL.eliminarHojas(raiz, primera, segunda), siguiente, largo + 1);
+        }
+
+        /**
+         * Método recursivo que explora en profundidad los estados alcanzables
+         *
+         * @param nodo  El estado actual
+         * @param largo La cantidad de jugadas que llevaron al estado
+         * @return true si desde el estado se vacía la baraja
+         */
+        private boolean explorar(Nodo nodo, int largo) {
+            if (nodo == null) {
+                busqueda.solucion.compareAndSet(null, Arrays.copyOf(camino, largo));
+                return true;
+            }
+            if (busqueda.terminada() || esSinSalida(nodo)) {
+                return false;
+            }
+            if (++pendientes == LOTE_CONTEO) {
+                contar();
+            }
+            long hojas = nodo.hojas;
+            for (long reyes = hojas & POR_VALOR[13]; reyes != 0; reyes &= reyes - 1) {
+                int rey = Long.numberOfTrailingZeros(reyes);
+                camino[largo] = codificar(rey, -1);
+                if (explorar(ArbolAVL.eliminarHojas(nodo, Carta.desdeIndice(rey), null), largo + 1)) {
+                    return true;
+                }
+            }
+            for (int valor = 1; valor <= 6; valor++) {
+                long complementos = hojas & POR_VALOR[13 - valor];
+                for (long menores = hojas & POR_VALOR[valor]; menores != 0 && complementos != 0; menores &= menores - 1) {
+                    int menor = Long.numberOfTrailingZeros(menores);
+                    for (long mayores = complementos; mayores != 0; mayores &= mayores - 1) {
+                        int mayor = Long.numberOfTrailingZeros(mayores);
+                        camino[largo] = codificar(menor, mayor);
+                        if (explorar(ArbolAVL.eliminarHojas(nodo, Carta.desdeIndice(menor), Carta.desdeIndice(mayor)), largo + 1)) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            if (!busqueda.terminada()) {
+                marcarSinSalida(nodo);
+            }
+            return false;
+        }
+
+        /**
+         * Método que suma los estados pendientes al contador compartido y detiene la
+         * búsqueda si se alcanzó el límite
+         */
+        private void contar() {
+            long total = busqueda.explorados.addAndGet(pendientes);
+            pendientes = 0;
+            if (total >= busqueda.limite) {
+                busqueda.agotada = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * @file BatchException.java
+ * @author 202030799 Manuel Rojas
+ * @brief Clase para representar excepción de lote de jugadas rechazado
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.errors;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Excepción creada para cuando una jugada de un lote falla, en cuyo caso ninguna jugada
+ * del lote se aplica. Lleva el resultado de cada jugada para informarlo al cliente.
+ */
+public class BatchException extends RuntimeException{
+    /**
+     * El resultado de cada jugada del lote
+     */
+    private final List<Map<String, Object>> resultados;
+
+    /**
+     * Constructor de la excepción
+     * @param indice la posición de la jugada que falló
+     * @param resultados el resultado de cada jugada del lote
+     */
+    public BatchException(int indice, List<Map<String, Object>> resultados){
+        super("La jugada ".concat(Integer.toString(indice)).concat(" del lote fallo, no se aplico ninguna jugada"));
+        this.resultados = resultados;
+    }
+
+    /**
+     * Método para obtener el resultado de cada jugada del lote
+     * @return los resultados en el orden de las jugadas
+     */
+    public List<Map<String, Object>> getResultados() {
+        return resultados;
+    }
+}
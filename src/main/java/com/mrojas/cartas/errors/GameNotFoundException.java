@@ -0,0 +1,23 @@
+/**
+ * @file GameNotFoundException.java
+ * @author 202030799 Manuel Rojas
+ * @brief Clase para representar excepción de partida no encontrada
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.errors;
+
+/**
+ * Excepción creada para cuando el identificador de partida no corresponde a ningún juego activo
+ */
+public class GameNotFoundException extends RuntimeException{
+    /**
+     * Constructor de la excepción
+     * @param partida el identificador de la partida que no fue encontrada
+     */
+    public GameNotFoundException(String partida){
+        super("La partida ".concat(String.valueOf(partida)).concat(" no existe o ya no se encuentra activa"));
+    }
+}
@@ -0,0 +1,23 @@
+/**
+ * @file ImageNotFoundException.java
+ * @author 202030799 Manuel Rojas
+ * @brief Clase para representar excepción de imagen no encontrada
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.errors;
+
+/**
+ * Excepción creada para cuando se solicita una imagen del árbol que no está generada
+ */
+public class ImageNotFoundException extends RuntimeException{
+    /**
+     * Constructor de la excepción
+     * @param imagen el identificador de la imagen que no fue encontrada
+     */
+    public ImageNotFoundException(String imagen){
+        super("La imagen ".concat(String.valueOf(imagen)).concat(" no existe o ya no se encuentra disponible, solicite de nuevo el estado del arbol"));
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * @file RenderBusyException.java
+ * @author 202030799 Manuel Rojas
+ * @brief Clase para representar excepción de dibujo que no terminó a tiempo
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.errors;
+
+/**
+ * Excepción creada para cuando el dibujo de una imagen del árbol no termina a tiempo
+ * porque hay demasiados dibujos en curso. La imagen se sigue dibujando y el cliente puede
+ * pedirla de nuevo más tarde.
+ */
+public class RenderBusyException extends RuntimeException{
+    /**
+     * Los segundos que el cliente debería esperar antes de pedir la imagen de nuevo
+     */
+    private final long reintento;
+
+    /**
+     * Constructor de la excepción
+     * @param imagen el identificador de la imagen que se está dibujando
+     * @param reintento los segundos que el cliente debería esperar antes de pedirla de nuevo
+     */
+    public RenderBusyException(String imagen, long reintento){
+        super("La imagen ".concat(String.valueOf(imagen)).concat(" todavia se esta dibujando, intente de nuevo mas tarde"));
+        this.reintento = reintento;
+    }
+
+    /**
+     * Método para obtener los segundos que el cliente debería esperar
+     * @return los segundos antes de pedir la imagen de nuevo
+     */
+    public long getReintento() {
+        return reintento;
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * @file RenderException.java
+ * @author 202030799 Manuel Rojas
+ * @brief Clase para representar excepción de dibujo fallido
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.errors;
+
+/**
+ * Excepción creada para cuando el dibujo de una imagen del árbol falla en el servidor
+ */
+public class RenderException extends RuntimeException{
+    /**
+     * Constructor de la excepción
+     * @param imagen el identificador de la imagen que no se pudo dibujar
+     * @param causa el error del dibujo
+     */
+    public RenderException(String imagen, Throwable causa){
+        super("No se pudo dibujar la imagen ".concat(String.valueOf(imagen)), causa);
+    }
+}
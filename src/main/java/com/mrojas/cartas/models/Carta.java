@@ -10,13 +10,47 @@
 package com.mrojas.cartas.models;
 
 /**
- * Clase creada con el fin de poder mapear una carta
+ * Clase creada con el fin de poder mapear una carta. Solo existen 52 instancias,
+ * una por cada carta de la baraja, creadas al cargar la clase; como son inmutables
+ * se comparten en toda la aplicación y dos cartas son iguales solo si son la misma
+ * instancia.
  */
 public class Carta {
-    private String nombre;
-    private int valor;
-    private TipoCarta tipo;
-    private int total;
+    /**
+     * Cantidad de cartas que existen de cada tipo
+     */
+    public static final int CARTAS_POR_TIPO = 13;
+    /**
+     * Cantidad de cartas distintas que existen en una baraja
+     */
+    public static final int TOTAL_CARTAS = CARTAS_POR_TIPO * 4;
+    /**
+     * Representación en texto del valor de cada carta, la posición corresponde al valor menos 1
+     */
+    private static final String[] NOMBRES = {"A", "2", "3", "4", "5", "6", "7", "8", "9", "10", "J", "Q", "K"};
+    /**
+     * Las únicas instancias de carta, la posición de cada una corresponde a su índice
+     */
+    private static final Carta[] BARAJA = new Carta[TOTAL_CARTAS];
+
+    static {
+        for (TipoCarta tipo : TipoCarta.values()) {
+            for (int valor = 1; valor <= CARTAS_POR_TIPO; valor++) {
+                Carta carta = new Carta(NOMBRES[valor - 1], tipo, valor);
+                BARAJA[carta.indice] = carta;
+            }
+        }
+    }
+
+    private final String nombre;
+    private final int valor;
+    private final TipoCarta tipo;
+    private final int total;
+    private final int indice;
+    /**
+     * Representación en texto de la carta, se calcula una sola vez
+     */
+    private final String texto;
 
     /**
      * Constructor de la clase Carta
@@ -24,11 +58,32 @@ public class Carta {
      * @param tipo El tipo de carta, puede ser de corazones, pica, trebol o diamante
      * @param valor El valor que representa esa carta del 1 al 13
      */
-    public Carta(String nombre, TipoCarta tipo, int valor){
+    private Carta(String nombre, TipoCarta tipo, int valor){
         this.nombre = nombre;
         this.tipo = tipo;
         this.valor = valor;
         total = valor +tipo.getAcarreo();
+        indice = tipo.ordinal() * CARTAS_POR_TIPO + valor - 1;
+        texto = nombre + tipo;
+    }
+
+    /**
+     * Método para obtener la carta que ocupa cierta posición dentro de la baraja
+     * @param indice La posición de la carta, entre 0 y 51
+     * @return La carta correspondiente a la posición
+     */
+    public static Carta desdeIndice(int indice){
+        return BARAJA[indice];
+    }
+
+    /**
+     * Método para obtener una carta a partir de su tipo y su valor
+     * @param tipo El tipo de carta, puede ser de corazones, pica, trebol o diamante
+     * @param valor El valor que representa esa carta del 1 al 13
+     * @return La carta correspondiente
+     */
+    public static Carta de(TipoCarta tipo, int valor){
+        return BARAJA[tipo.ordinal() * CARTAS_POR_TIPO + valor - 1];
     }
 
     /**
@@ -39,6 +94,15 @@ public class Carta {
         return total;
     }
 
+    /**
+     * Metodo para obtener la posición de la carta dentro de una baraja de 52 cartas, entre
+     * 0 y 51. Las posiciones respetan el mismo orden que el total de las cartas.
+     * @return la posición de la carta
+     */
+    public int getIndice(){
+        return indice;
+    }
+
     /**
      * Metodo para obtener la representación en texto del valor de la carta
      * @return la representación en texto de la carta
@@ -55,42 +119,26 @@ public class Carta {
         return valor;
     }
 
+    /**
+     * Método para obtener el tipo de la carta
+     * @return el tipo de la carta
+     */
+    public TipoCarta getTipo(){
+        return tipo;
+    }
+
     @Override
     public String toString() {
-        return nombre + tipo;
+        return texto;
     }
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + ((nombre == null) ? 0 : nombre.hashCode());
-        result = prime * result + ((tipo == null) ? 0 : tipo.hashCode());
-        result = prime * result + total;
-        result = prime * result + valor;
-        return result;
+        return indice;
     }
 
     @Override
     public boolean equals(Object obj) {
-        if (this == obj)
-            return true;
-        if (obj == null)
-            return false;
-        if (getClass() != obj.getClass())
-            return false;
-        Carta other = (Carta) obj;
-        if (nombre == null) {
-            if (other.nombre != null)
-                return false;
-        } else if (!nombre.equals(other.nombre))
-            return false;
-        if (tipo != other.tipo)
-            return false;
-        if (total != other.total)
-            return false;
-        if (valor != other.valor)
-            return false;
-        return true;
+        return this == obj;
     }
 }
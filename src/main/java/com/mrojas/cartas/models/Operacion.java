@@ -0,0 +1,93 @@
+/**
+ * @file Operacion.java
+ * @author 202030799 Manuel Rojas
+ * @brief Clase para representar una jugada dentro de un lote
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.models;
+
+/**
+ * Clase que representa una jugada de un lote, ya sea la inserción de una carta o la
+ * eliminación de una o dos cartas
+ */
+public class Operacion {
+    /**
+     * true si la jugada inserta una carta, false si elimina
+     */
+    private final boolean insercion;
+    /**
+     * La carta a insertar o la primera carta a eliminar
+     */
+    private final Carta carta1;
+    /**
+     * La segunda carta a eliminar, null si la jugada solo usa una carta
+     */
+    private final Carta carta2;
+
+    /**
+     * Constructor de la clase Operacion
+     * @param insercion true si la jugada inserta una carta
+     * @param carta1 La carta a insertar o la primera carta a eliminar
+     * @param carta2 La segunda carta a eliminar
+     */
+    private Operacion(boolean insercion, Carta carta1, Carta carta2) {
+        this.insercion = insercion;
+        this.carta1 = carta1;
+        this.carta2 = carta2;
+    }
+
+    /**
+     * Método para crear una jugada que inserta una carta
+     * @param carta La carta a insertar
+     * @return La jugada
+     */
+    public static Operacion insertar(Carta carta) {
+        return new Operacion(true, carta, null);
+    }
+
+    /**
+     * Método para crear una jugada que elimina una o dos cartas
+     * @param carta1 La primera carta a eliminar
+     * @param carta2 La segunda carta a eliminar, puede ser null para eliminar una sola carta
+     * @return La jugada
+     */
+    public static Operacion eliminar(Carta carta1, Carta carta2) {
+        return new Operacion(false, carta1, carta2);
+    }
+
+    /**
+     * Método para saber si la jugada inserta una carta
+     * @return true si inserta, false si elimina
+     */
+    public boolean isInsercion() {
+        return insercion;
+    }
+
+    /**
+     * Método para obtener la carta a insertar o la primera carta a eliminar
+     * @return la primera carta de la jugada
+     */
+    public Carta getCarta1() {
+        return carta1;
+    }
+
+    /**
+     * Método para obtener la segunda carta a eliminar
+     * @return la segunda carta, null si la jugada usa una sola carta
+     */
+    public Carta getCarta2() {
+        return carta2;
+    }
+
+    @Override
+    public String toString() {
+        if (insercion) {
+            return "insert ".concat(carta1.toString());
+        }
+        return carta2 == null ? "delete ".concat(carta1.toString())
+                : "delete ".concat(carta1.toString()).concat(" ").concat(carta2.toString());
+    }
+}
@@ -57,6 +57,14 @@ public enum TipoCarta {
         return acarreo;
     }
 
+    /**
+     * Metodo para obtener el simbolo con el que se representa el tipo de carta
+     * @return el simbolo del tipo de carta
+     */
+    public char getSimbolo() {
+        return simbolo;
+    }
+
     @Override
     public String toString() {
         return Character.toString(simbolo);
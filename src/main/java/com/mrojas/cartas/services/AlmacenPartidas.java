@@ -0,0 +1,410 @@
+/**
+ * @file AlmacenPartidas.java
+ * @author 202030799 Manuel Rojas
+ * @brief Clase para guardar las partidas activas y desalojar a disco las inactivas
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+import javax.annotation.PreDestroy;
+
+import com.mrojas.cartas.data_structures.ArbolAVL;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Clase que guarda las partidas activas con un límite de partidas en memoria y de tiempo
+ * sin uso. Un hilo aparte desaloja las partidas que pasaron el tiempo sin uso y, si aún
+ * hay más partidas que el límite, las que llevan más tiempo sin usarse hasta quedar un
+ * décimo por debajo del límite, con lo que el costo de ordenar se reparte entre muchas
+ * partidas nuevas. Si las partidas se crean más rápido de lo que el hilo las desaloja,
+ * quien crea la partida hace el desalojo, por lo que la memoria queda acotada sin
+ * importar cuántas partidas se abandonen. Una partida desalojada se guarda en disco con
+ * el formato de ArbolAVL.exportar, un byte por carta, y se vuelve a cargar la siguiente
+ * vez que se busca. Una partida que sigue en disco pasado un tiempo de caducidad se
+ * considera abandonada: el mismo hilo borra su archivo, con lo que ya no se encuentra ni
+ * se registra en la bitácora al compactarla, y el disco también queda acotado.
+ *
+ * Los archivos solo extienden la memoria mientras el servidor está activo, por lo que se
+ * borran al iniciar; la bitácora es la que permite recuperar las partidas.
+ */
+@Component
+public class AlmacenPartidas {
+    /**
+     * Extensión de los archivos de las partidas desalojadas
+     */
+    private static final String EXTENSION = ".avl";
+    /**
+     * Segundos que se espera al desalojo en curso al cerrar la aplicación
+     */
+    private static final long ESPERA_CIERRE_S = 10;
+
+    private final Map<String, Partida> partidas = new ConcurrentHashMap<>();
+    private final int maximo;
+    /**
+     * Cantidad de partidas en memoria que deja un desalojo por exceso
+     */
+    private final int objetivo;
+    /**
+     * Cantidad de partidas a partir de la cual quien agrega una partida hace el desalojo
+     */
+    private final int limite;
+    private final long inactividad;
+    /**
+     * Milisegundos que una partida desalojada puede seguir en disco sin usarse
+     */
+    private final long caducidad;
+    private final Path directorio;
+    private final ScheduledExecutorService desalojador;
+    /**
+     * Indica si ya hay un desalojo programado por haber pasado el límite de partidas
+     */
+    private final AtomicBoolean programado = new AtomicBoolean();
+
+    /**
+     * Constructor de la clase AlmacenPartidas, borra las partidas desalojadas de una
+     * ejecución anterior y programa el desalojo periódico
+     * @param maximo La cantidad máxima de partidas en memoria
+     * @param inactividad Los milisegundos sin uso tras los que se desaloja una partida
+     * @param ruta La ruta del directorio de las partidas desalojadas
+     * @param intervalo Los milisegundos entre cada revisión de las partidas
+     * @param caducidad Los milisegundos tras los que se borra una partida desalojada que
+     *        no se volvió a usar
+     * @throws IOException Si no se puede preparar el directorio
+     */
+    public AlmacenPartidas(@Value("${cartas.sessions.max-active:10000}") int maximo,
+            @Value("${cartas.sessions.idle-timeout-ms:1800000}") long inactividad,
+            @Value("${cartas.sessions.spill-path:data/sessions}") String ruta,
+            @Value("${cartas.sessions.sweep-interval-ms:10000}") long intervalo,
+            @Value("${cartas.sessions.spill-ttl-ms:86400000}") long caducidad) throws IOException {
+        this.maximo = maximo;
+        objetivo = maximo - maximo / 10;
+        limite = maximo + Math.max(1, maximo / 10);
+        this.inactividad = TimeUnit.MILLISECONDS.toNanos(inactividad);
+        this.caducidad = caducidad;
+        directorio = Paths.get(ruta);
+        Files.createDirectories(directorio);
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, "*" + EXTENSION)) {
+            for (Path archivo : archivos) {
+                Files.delete(archivo);
+            }
+        }
+        desalojador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "desalojo");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        desalojador.scheduleWithFixedDelay(this::revisar, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Método para agregar una partida nueva
+     * @param partida El identificador de la partida
+     * @param juego La partida
+     */
+    public void agregar(String partida, Partida juego) {
+        partidas.put(partida, juego);
+        revisarLimite();
+    }
+
+    /**
+     * Método para buscar una partida y registrar el acceso, si la partida fue desalojada
+     * se carga desde disco
+     * @param partida El identificador de la partida
+     * @return La partida, null si no existe
+     */
+    public Partida buscar(String partida) {
+        Partida juego = partidas.get(partida);
+        if (juego == null || juego.isDesalojada()) {
+            juego = partidas.compute(partida, (clave, actual) -> actual == null || actual.isDesalojada() ? cargar(clave) : actual);
+            if (juego == null) {
+                return null;
+            }
+            revisarLimite();
+        }
+        juego.tocar();
+        return juego;
+    }
+
+    /**
+     * Método que revisa la cantidad de partidas en memoria luego de agregar una, si se pasa
+     * del límite se programa un desalojo y si el desalojo programado no alcanza a liberar
+     * memoria se hace en este hilo
+     */
+    private void revisarLimite() {
+        int cantidad = partidas.size();
+        if (cantidad > limite) {
+            synchronized (this) {
+                // Otro hilo pudo haber desalojado mientras se esperaba
+                if (partidas.size() > limite) {
+                    desalojar();
+                }
+            }
+        } else if (cantidad > maximo && programado.compareAndSet(false, true)) {
+            desalojador.execute(this::desalojar);
+        }
+    }
+
+    /**
+     * Método para obtener la cantidad de partidas en memoria
+     * @return La cantidad de partidas en memoria
+     */
+    public int getCantidad() {
+        return partidas.size();
+    }
+
+    /**
+     * Método que entrega el pre orden de la baraja de cada partida, en memoria o desalojada,
+     * mientras ninguna escritura la puede modificar. Los archivos se listan antes que las
+     * partidas en memoria y sin desalojos de por medio, así una partida que se carga
+     * mientras tanto está en alguna de las dos listas. Luego cada partida se lee dentro
+     * del cálculo del mapa, que excluye a quien la cargaría: la que está en memoria con su
+     * cerrojo exclusivo y la desalojada desde su archivo.
+     * @param destino La operación que recibe el identificador y el pre orden de cada partida
+     */
+    public void recorrer(BiConsumer<String, byte[]> destino) {
+        Set<String> identificadores = new HashSet<>();
+        synchronized (this) {
+            try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, "*" + EXTENSION)) {
+                for (Path archivo : archivos) {
+                    String nombre = archivo.getFileName().toString();
+                    identificadores.add(nombre.substring(0, nombre.length() - EXTENSION.length()));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            identificadores.addAll(partidas.keySet());
+        }
+        for (String identificador : identificadores) {
+            partidas.compute(identificador, (partida, actual) -> {
+                if (actual == null || !actual.leerExclusivo(baraja -> destino.accept(partida, baraja.exportar()))) {
+                    // Una partida caducada ya no se registra, aunque aún no se borre su archivo
+                    byte[] preOrden = leer(partida);
+                    if (preOrden != null) {
+                        destino.accept(partida, preOrden);
+                    }
+                }
+                return actual;
+            });
+        }
+    }
+
+    /**
+     * Método que lee el archivo de una partida desalojada sin borrarlo
+     * @param partida El identificador de la partida
+     * @return El pre orden de la baraja, null si la partida no tiene archivo o caducó
+     */
+    private byte[] leer(String partida) {
+        Path archivo = getArchivo(partida);
+        if (archivo == null) {
+            return null;
+        }
+        try {
+            if (isCaducado(archivo)) {
+                return null;
+            }
+            return Files.readAllBytes(archivo);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Método que carga una partida desalojada y borra su archivo. Una partida caducada no
+     * se carga, ya que una compactación de la bitácora pudo haberla omitido.
+     * @param partida El identificador de la partida
+     * @return La partida, null si no fue desalojada o caducó
+     */
+    private Partida cargar(String partida) {
+        Path archivo = getArchivo(partida);
+        if (archivo == null) {
+            return null;
+        }
+        try {
+            if (isCaducado(archivo)) {
+                Files.deleteIfExists(archivo);
+                return null;
+            }
+            byte[] preOrden = Files.readAllBytes(archivo);
+            Files.delete(archivo);
+            return new Partida(ArbolAVL.importar(preOrden));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Método que obtiene el archivo de una partida, solo los identificadores generados
+     * por el servidor tienen archivo
+     * @param partida El identificador de la partida
+     * @return El archivo de la partida, null si el identificador no es válido
+     */
+    private Path getArchivo(String partida) {
+        try {
+            if (!UUID.fromString(partida).toString().equals(partida)) {
+                return null;
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return directorio.resolve(partida + EXTENSION);
+    }
+
+    /**
+     * Método que hace la revisión periódica: desaloja las partidas sin uso y borra las
+     * desalojadas que caducaron
+     */
+    private void revisar() {
+        desalojar();
+        caducar();
+    }
+
+    /**
+     * Método que borra los archivos de las partidas desalojadas cuya última escritura es
+     * anterior a la caducidad. Cada archivo se borra dentro del cálculo del mapa, por lo
+     * que no se puede borrar mientras la partida se está cargando.
+     */
+    void caducar() {
+        List<String> caducadas = new ArrayList<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, "*" + EXTENSION)) {
+            for (Path archivo : archivos) {
+                if (isCaducado(archivo)) {
+                    String nombre = archivo.getFileName().toString();
+                    caducadas.add(nombre.substring(0, nombre.length() - EXTENSION.length()));
+                }
+            }
+        } catch (IOException e) {
+            // Se intenta de nuevo en la siguiente revisión
+            return;
+        }
+        for (String caducada : caducadas) {
+            partidas.compute(caducada, (partida, actual) -> {
+                Path archivo = getArchivo(partida);
+                try {
+                    // Si la partida se cargó y se desalojó de nuevo su archivo es reciente
+                    if (actual == null && archivo != null && isCaducado(archivo)) {
+                        Files.deleteIfExists(archivo);
+                    }
+                } catch (IOException e) {
+                    // Se intenta de nuevo en la siguiente revisión
+                }
+                return actual;
+            });
+        }
+    }
+
+    /**
+     * Método para saber si el archivo de una partida desalojada caducó
+     * @param archivo El archivo de la partida
+     * @return true si la última escritura del archivo es anterior a la caducidad
+     * @throws IOException Si no se puede leer la fecha del archivo
+     */
+    private boolean isCaducado(Path archivo) throws IOException {
+        try {
+            return System.currentTimeMillis() - Files.getLastModifiedTime(archivo).toMillis() > caducidad;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Método que desaloja las partidas que pasaron el tiempo sin uso y, si aún hay más
+     * partidas que el límite, las que llevan más tiempo sin usarse. Los tiempos se copian
+     * antes de ordenar ya que pueden cambiar mientras se ordena. Solo un hilo desaloja a
+     * la vez, los demás esperan a que termine.
+     */
+    synchronized void desalojar() {
+        programado.set(false);
+        long ahora = System.nanoTime();
+        List<Map.Entry<String, Long>> activas = new ArrayList<>();
+        for (Map.Entry<String, Partida> entrada : partidas.entrySet()) {
+            long acceso = entrada.getValue().getUltimoAcceso();
+            if (ahora - acceso < inactividad || !desalojar(entrada.getKey(), entrada.getValue())) {
+                activas.add(Map.entry(entrada.getKey(), acceso));
+            }
+        }
+        if (partidas.size() <= maximo) {
+            return;
+        }
+        int exceso = partidas.size() - objetivo;
+        activas.sort(Map.Entry.comparingByValue());
+        for (int i = 0; i < activas.size() && exceso > 0; i++) {
+            String partida = activas.get(i).getKey();
+            Partida juego = partidas.get(partida);
+            if (juego != null && desalojar(partida, juego)) {
+                exceso--;
+            }
+        }
+    }
+
+    /**
+     * Método que guarda una partida en disco y la quita de memoria, si una escritura la
+     * tiene tomada se deja para la siguiente revisión
+     * @param partida El identificador de la partida
+     * @param juego La partida
+     * @return true si la partida fue desalojada
+     */
+    private boolean desalojar(String partida, Partida juego) {
+        try {
+            if (!juego.desalojar(baraja -> guardar(partida, baraja))) {
+                return false;
+            }
+        } catch (UncheckedIOException e) {
+            return false;
+        }
+        partidas.remove(partida, juego);
+        return true;
+    }
+
+    /**
+     * Método que guarda la baraja de una partida en su archivo
+     * @param partida El identificador de la partida
+     * @param baraja La baraja a guardar
+     */
+    private void guardar(String partida, ArbolAVL baraja) {
+        try {
+            Files.write(getArchivo(partida), baraja.exportar());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Método que detiene el desalojo al cerrar la aplicación, espera a que termine el
+     * desalojo en curso para que no se escriban archivos después de cerrar
+     * @throws InterruptedException Si se interrumpe la espera
+     */
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        desalojador.shutdownNow();
+        desalojador.awaitTermination(ESPERA_CIERRE_S, TimeUnit.SECONDS);
+    }
+}
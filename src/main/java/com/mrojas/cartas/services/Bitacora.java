@@ -0,0 +1,568 @@
+/**
+ * @file Bitacora.java
+ * @author 202030799 Manuel Rojas
+ * @brief Clase para registrar las jugadas en un archivo y recuperarlas al iniciar
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32C;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Clase que lleva una bitácora de solo escritura al final con todas las jugadas que
+ * modificaron una partida. Cada jugada ocupa un registro de tamaño fijo de 32 bytes:
+ *
+ * <pre>
+ *  0      tipo de registro (INICIO, INSERCION, ELIMINACION, IMPORTACION)
+ *  1      banderas, CONTINUA indica que el siguiente registro es parte de la misma jugada
+ *  2-3    reservado
+ *  4-7    CRC32C de los bytes 0, 1 y 8 a 31
+ *  8-23   identificador de la partida
+ *  24-31  índice de presencia de las cartas de la jugada, u ocho bytes de una importación
+ * </pre>
+ *
+ * La bitácora se divide en segmentos de tamaño acotado, archivos con la ruta configurada
+ * seguida del número de segmento. Cada segmento se mapea en memoria una sola vez, por lo
+ * que registrar una jugada es copiar 32 bytes sin ninguna llamada al sistema, y al
+ * llenarse se continúa en el siguiente; las posiciones se cuentan en bytes desde el
+ * inicio con un long, así que ningún segmento ni la bitácora completa dependen de que
+ * quepan en un int. Un hilo aparte fuerza los cambios al disco cada cierto tiempo, lo que
+ * agrupa en una sola sincronización todas las jugadas de ese intervalo.
+ *
+ * Para que la bitácora no crezca sin límite se compacta: se empieza un segmento nuevo, se
+ * registra en él la baraja de cada partida como una importación, en el formato de
+ * ArbolAVL.exportar, y se borran los segmentos anteriores. Cada baraja se registra
+ * mientras ninguna escritura la puede modificar, por lo que las jugadas de esa partida
+ * que queden antes de su baraja en el segmento nuevo ya están incluidas en ella, y al
+ * recuperar se ignoran porque la partida todavía no existe. Si el servidor se detiene a
+ * mitad de una compactación los segmentos anteriores siguen ahí y recuperarlos todos da
+ * el mismo resultado. Se compacta cuando un segmento se llena y lo escrito desde la última
+ * compactación ya ocupa más que las barajas que ella registró.
+ *
+ * Al iniciar se recorren los segmentos en orden, cada uno hasta el primer registro vacío
+ * o dañado.
+ */
+@Component
+@ConditionalOnProperty(name = "cartas.journal.enabled", havingValue = "true")
+public class Bitacora {
+    /**
+     * Tamaño de cada registro en bytes
+     */
+    public static final int REGISTRO = 32;
+    public static final byte INICIO = 1;
+    public static final byte INSERCION = 2;
+    public static final byte ELIMINACION = 3;
+    /**
+     * Registro con ocho bytes de una baraja importada, la baraja completa es un grupo
+     */
+    public static final byte IMPORTACION = 4;
+    /**
+     * Byte con el que se rellena el último registro de un grupo de bytes
+     */
+    public static final byte RELLENO = (byte) 0xFF;
+    /**
+     * Bandera de un registro cuya jugada continúa en el siguiente registro
+     */
+    public static final byte CONTINUA = 1;
+    /**
+     * Cantidad mínima de registros de un segmento
+     */
+    private static final int MINIMO_REGISTROS = 64;
+    /**
+     * Segundos que se espera a una compactación en curso al cerrar la aplicación
+     */
+    private static final long ESPERA_CIERRE_S = 10;
+
+    /**
+     * Operación que recibe las jugadas válidas al recuperar la bitácora
+     */
+    @FunctionalInterface
+    public interface Lector {
+        /**
+         * Método que recibe una jugada recuperada
+         * @param tipo El tipo de registro
+         * @param banderas Las banderas del registro
+         * @param partida El identificador de la partida
+         * @param cartas El índice de presencia de las cartas de la jugada
+         */
+        void leer(byte tipo, byte banderas, String partida, long cartas);
+    }
+
+    /**
+     * Operación que entrega la baraja de todas las partidas al compactar la bitácora
+     */
+    @FunctionalInterface
+    public interface Fuente {
+        /**
+         * Método que entrega el pre orden de la baraja de cada partida, cada uno se debe
+         * entregar mientras ninguna escritura pueda modificar esa partida
+         * @param destino La operación que recibe el identificador y el pre orden
+         */
+        void recorrer(BiConsumer<String, byte[]> destino);
+    }
+
+    private final Path archivo;
+    private final int tamanoSegmento;
+    private FileChannel canal;
+    private MappedByteBuffer mapa;
+    /**
+     * Número del segmento en el que se escribe
+     */
+    private long segmento;
+    /**
+     * Número del segmento más antiguo que sigue en disco
+     */
+    private long primerSegmento;
+    /**
+     * Posición en la que inicia el segmento actual
+     */
+    private long inicio;
+    /**
+     * Posición en la que se escribirá el siguiente registro
+     */
+    private long posicion;
+    /**
+     * Posición hasta la que los registros ya fueron forzados al disco
+     */
+    private long forzada;
+    /**
+     * Posición en la que terminó la última compactación
+     */
+    private long finCompactacion;
+    /**
+     * Bytes que ocuparon las barajas registradas por la última compactación
+     */
+    private long tamanoCompactado;
+    private boolean compactando;
+    private boolean compactacionProgramada;
+    private volatile Fuente fuente;
+    private final ScheduledExecutorService sincronizador;
+    private final ExecutorService compactador;
+    private final CRC32C crc = new CRC32C();
+    /**
+     * Objeto con el que se hace una sola compactación a la vez
+     */
+    private final Object compactacion = new Object();
+
+    /**
+     * Constructor de la clase Bitacora, abre o crea el último segmento y programa la
+     * sincronización
+     * @param ruta La ruta de la bitácora, cada segmento agrega su número a la ruta
+     * @param intervalo Los milisegundos entre cada sincronización con el disco
+     * @param tamano La cantidad de bytes de cada segmento, se redondea a registros completos
+     * @throws IOException Si no se puede abrir el segmento
+     */
+    public Bitacora(@Value("${cartas.journal.path}") String ruta,
+            @Value("${cartas.journal.commit-interval-ms:50}") long intervalo,
+            @Value("${cartas.journal.segment-size:67108864}") long tamano) throws IOException {
+        if (tamano < (long) MINIMO_REGISTROS * REGISTRO || tamano > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("El tamaño de un segmento debe estar entre "
+                    + MINIMO_REGISTROS * REGISTRO + " e " + Integer.MAX_VALUE + " bytes");
+        }
+        tamanoSegmento = (int) (tamano - tamano % REGISTRO);
+        archivo = Paths.get(ruta).toAbsolutePath();
+        Files.createDirectories(archivo.getParent());
+        if (Files.isRegularFile(archivo)) {
+            // Bitácora de un solo archivo, pasa a ser el primer segmento
+            Files.move(archivo, getSegmento(0));
+        }
+        List<Long> segmentos = listarSegmentos();
+        primerSegmento = segmentos.isEmpty() ? 0 : segmentos.get(0);
+        abrir(segmentos.isEmpty() ? 0 : segmentos.get(segmentos.size() - 1));
+        sincronizador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "bitacora");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        sincronizador.scheduleWithFixedDelay(this::sincronizar, intervalo, intervalo, TimeUnit.MILLISECONDS);
+        compactador = Executors.newSingleThreadExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "compactacion");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Método para obtener el archivo de un segmento
+     * @param numero El número del segmento
+     * @return La ruta del segmento
+     */
+    private Path getSegmento(long numero) {
+        return archivo.resolveSibling(archivo.getFileName() + "." + String.format("%010d", numero));
+    }
+
+    /**
+     * Método que busca los segmentos de la bitácora en disco
+     * @return Los números de los segmentos en orden
+     * @throws IOException Si no se puede leer el directorio
+     */
+    private List<Long> listarSegmentos() throws IOException {
+        List<Long> segmentos = new ArrayList<>();
+        String prefijo = archivo.getFileName() + ".";
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(archivo.getParent(), prefijo + "*")) {
+            for (Path candidato : archivos) {
+                try {
+                    segmentos.add(Long.parseLong(candidato.getFileName().toString().substring(prefijo.length())));
+                } catch (NumberFormatException e) {
+                    // No es un segmento
+                }
+            }
+        }
+        segmentos.sort(null);
+        return segmentos;
+    }
+
+    /**
+     * Método que abre un segmento para escribir y lo mapea completo en memoria, un
+     * segmento nuevo se extiende al tamaño configurado
+     * @param numero El número del segmento
+     * @throws IOException Si no se puede abrir o mapear el segmento
+     */
+    private void abrir(long numero) throws IOException {
+        canal = FileChannel.open(getSegmento(numero), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(canal.size(), tamanoSegmento));
+        mapa.order(ByteOrder.LITTLE_ENDIAN);
+        segmento = numero;
+    }
+
+    /**
+     * Método que recorre la bitácora desde el segmento más antiguo entregando cada jugada
+     * válida. Cada segmento se lee hasta el primer registro vacío o cuyo CRC no coincide;
+     * en el último es donde se escribirán los siguientes registros y lo que quede después
+     * se borra. Los registros de un grupo solo se entregan si el grupo llegó completo al
+     * disco.
+     * @param lector La operación que recibe las jugadas
+     */
+    public synchronized void recuperar(Lector lector) {
+        try {
+            for (long numero : listarSegmentos()) {
+                if (numero >= segmento) {
+                    break;
+                }
+                try (FileChannel anterior = FileChannel.open(getSegmento(numero), StandardOpenOption.READ)) {
+                    MappedByteBuffer lectura = anterior.map(FileChannel.MapMode.READ_ONLY, 0, anterior.size());
+                    lectura.order(ByteOrder.LITTLE_ENDIAN);
+                    leer(lectura, lector);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        inicio = 0;
+        int fin = leer(mapa, lector);
+        posicion = fin;
+        // Lo que sigue solo puede venir de una escritura interrumpida, se descarta
+        for (int resto = fin; resto + REGISTRO <= mapa.capacity() && mapa.get(resto) != 0; resto += REGISTRO) {
+            for (int i = 0; i < REGISTRO; i++) {
+                mapa.put(resto + i, (byte) 0);
+            }
+        }
+        forzada = 0;
+        finCompactacion = posicion;
+    }
+
+    /**
+     * Método que entrega las jugadas válidas de un segmento
+     * @param lectura El segmento mapeado en memoria
+     * @param lector La operación que recibe las jugadas
+     * @return La posición dentro del segmento en la que terminan los grupos completos
+     */
+    private int leer(MappedByteBuffer lectura, Lector lector) {
+        List<Integer> grupo = new ArrayList<>();
+        int desplazamiento = 0;
+        while (desplazamiento + REGISTRO <= lectura.capacity()) {
+            byte tipo = lectura.get(desplazamiento);
+            if (tipo == 0 || lectura.getInt(desplazamiento + 4) != calcularCrc(lectura, desplazamiento)) {
+                break;
+            }
+            grupo.add(desplazamiento);
+            desplazamiento += REGISTRO;
+            if ((lectura.get(desplazamiento - REGISTRO + 1) & CONTINUA) == 0) {
+                for (int registro : grupo) {
+                    UUID partida = new UUID(lectura.getLong(registro + 8), lectura.getLong(registro + 16));
+                    lector.leer(lectura.get(registro), lectura.get(registro + 1), partida.toString(),
+                            lectura.getLong(registro + 24));
+                }
+                grupo.clear();
+            }
+        }
+        return grupo.isEmpty() ? desplazamiento : grupo.get(0);
+    }
+
+    /**
+     * Método que calcula el CRC de un registro
+     * @param lectura El segmento en el que está el registro
+     * @param desplazamiento La posición del registro dentro del segmento
+     * @return El CRC del tipo, las banderas y los bytes 8 a 31 del registro
+     */
+    private int calcularCrc(MappedByteBuffer lectura, int desplazamiento) {
+        crc.reset();
+        crc.update(lectura.get(desplazamiento));
+        crc.update(lectura.get(desplazamiento + 1));
+        crc.update(lectura.slice(desplazamiento + 8, REGISTRO - 8));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Método para empezar a compactar la bitácora una vez recuperadas las partidas. Si
+     * quedaron varios segmentos, por ejemplo de una compactación interrumpida, se compacta
+     * de inmediato.
+     * @param fuente La operación que entrega la baraja de cada partida
+     */
+    public synchronized void compactarCon(Fuente fuente) {
+        this.fuente = fuente;
+        if (primerSegmento < segmento) {
+            programarCompactacion();
+        }
+    }
+
+    /**
+     * Método para registrar una jugada, solo copia el registro al mapa en memoria
+     * @param tipo El tipo de registro
+     * @param partida El identificador de la partida
+     * @param cartas El índice de presencia de las cartas de la jugada
+     */
+    public synchronized void registrar(byte tipo, String partida, long cartas) {
+        UUID identificador = UUID.fromString(partida);
+        reservar(1);
+        escribir(tipo, (byte) 0, identificador, cartas);
+    }
+
+    /**
+     * Método para registrar un grupo de jugadas que se recupera completo o no se recupera.
+     * Los registros quedan seguidos en un mismo segmento y todos menos el último llevan la
+     * bandera CONTINUA.
+     * @param partida El identificador de la partida
+     * @param tipos El tipo de registro de cada jugada
+     * @param cartas El índice de presencia de las cartas de cada jugada
+     * @throws IllegalArgumentException si el grupo no cabe en un segmento
+     */
+    public synchronized void registrar(String partida, byte[] tipos, long[] cartas) {
+        UUID identificador = UUID.fromString(partida);
+        reservar(tipos.length);
+        for (int i = 0; i < tipos.length; i++) {
+            escribir(tipos[i], i < tipos.length - 1 ? CONTINUA : 0, identificador, cartas[i]);
+        }
+    }
+
+    /**
+     * Método para registrar un arreglo de bytes como un grupo, ocho bytes por registro. El
+     * último registro se rellena con RELLENO y un arreglo vacío ocupa un registro de relleno.
+     * @param tipo El tipo de los registros
+     * @param partida El identificador de la partida
+     * @param datos Los bytes a registrar
+     */
+    public synchronized void registrar(byte tipo, String partida, byte[] datos) {
+        UUID identificador = UUID.fromString(partida);
+        int registros = Math.max(1, (datos.length + Long.BYTES - 1) / Long.BYTES);
+        reservar(registros);
+        for (int i = 0; i < registros; i++) {
+            long bytes = 0L;
+            for (int j = 0; j < Long.BYTES; j++) {
+                int posicionDato = i * Long.BYTES + j;
+                byte dato = posicionDato < datos.length ? datos[posicionDato] : RELLENO;
+                bytes |= (dato & 0xFFL) << (j * Byte.SIZE);
+            }
+            escribir(tipo, i < registros - 1 ? CONTINUA : 0, identificador, bytes);
+        }
+    }
+
+    /**
+     * Método que se asegura de que los siguientes registros quepan en el segmento actual,
+     * si no caben se continúa en un segmento nuevo y, si corresponde, se programa una
+     * compactación
+     * @param registros La cantidad de registros que se van a escribir juntos
+     * @throws IllegalArgumentException si los registros no caben en un segmento
+     */
+    private void reservar(int registros) {
+        long bytes = (long) registros * REGISTRO;
+        if (bytes > tamanoSegmento) {
+            throw new IllegalArgumentException("La jugada ocupa " + registros
+                    + " registros y no cabe en un segmento de la bitácora");
+        }
+        if (posicion - inicio + bytes <= mapa.capacity()) {
+            return;
+        }
+        rotar();
+        if (!compactando && posicion - finCompactacion > tamanoCompactado) {
+            programarCompactacion();
+        }
+    }
+
+    /**
+     * Método que fuerza al disco el segmento actual y continúa en uno nuevo, el mapa del
+     * segmento anterior se libera con el recolector de basura
+     */
+    private void rotar() {
+        try {
+            mapa.force();
+            forzada = posicion;
+            canal.close();
+            abrir(segmento + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        inicio = posicion;
+    }
+
+    /**
+     * Método que copia un registro al final del segmento actual, el espacio ya debe
+     * estar reservado
+     * @param tipo El tipo de registro
+     * @param banderas Las banderas del registro
+     * @param partida El identificador de la partida
+     * @param cartas El índice de presencia de las cartas de la jugada
+     */
+    private void escribir(byte tipo, byte banderas, UUID partida, long cartas) {
+        int desplazamiento = (int) (posicion - inicio);
+        mapa.putLong(desplazamiento + 8, partida.getMostSignificantBits());
+        mapa.putLong(desplazamiento + 16, partida.getLeastSignificantBits());
+        mapa.putLong(desplazamiento + 24, cartas);
+        mapa.put(desplazamiento, tipo);
+        mapa.put(desplazamiento + 1, banderas);
+        mapa.putInt(desplazamiento + 4, calcularCrc(mapa, desplazamiento));
+        posicion += REGISTRO;
+    }
+
+    /**
+     * Método que programa una compactación si no hay otra programada
+     */
+    private void programarCompactacion() {
+        if (fuente != null && !compactacionProgramada) {
+            compactacionProgramada = true;
+            compactador.execute(this::compactar);
+        }
+    }
+
+    /**
+     * Método que compacta la bitácora: empieza un segmento nuevo, registra en él la baraja
+     * de cada partida y, una vez forzadas al disco, borra los segmentos anteriores. Las
+     * jugadas se siguen registrando mientras tanto. Si ya hay una compactación en curso se
+     * espera a que termine.
+     */
+    public void compactar() {
+        synchronized (compactacion) {
+            compactarSegmentos();
+        }
+    }
+
+    /**
+     * Método que hace una compactación, solo se hace una a la vez
+     */
+    private void compactarSegmentos() {
+        Fuente actual = fuente;
+        long primero;
+        long desde;
+        synchronized (this) {
+            compactacionProgramada = false;
+            if (actual == null) {
+                return;
+            }
+            compactando = true;
+            if (posicion > inicio) {
+                rotar();
+            }
+            primero = segmento;
+            desde = posicion;
+        }
+        try {
+            actual.recorrer((partida, preOrden) -> registrar(IMPORTACION, partida, preOrden));
+        } finally {
+            synchronized (this) {
+                compactando = false;
+            }
+        }
+        sincronizar();
+        synchronized (this) {
+            tamanoCompactado = posicion - desde;
+            finCompactacion = posicion;
+        }
+        borrarAnteriores(primero);
+    }
+
+    /**
+     * Método que borra los segmentos anteriores a uno, si alguno no se puede borrar se
+     * intenta de nuevo en la siguiente compactación
+     * @param primero El número del primer segmento que se conserva
+     */
+    private void borrarAnteriores(long primero) {
+        try {
+            for (long numero : listarSegmentos()) {
+                if (numero >= primero) {
+                    break;
+                }
+                Files.deleteIfExists(getSegmento(numero));
+            }
+            synchronized (this) {
+                primerSegmento = primero;
+            }
+        } catch (IOException e) {
+            // Los segmentos que queden se borran en la siguiente compactación
+        }
+    }
+
+    /**
+     * Método que fuerza al disco los registros escritos desde la última sincronización,
+     * los segmentos anteriores ya se forzaron al continuar en uno nuevo
+     */
+    public void sincronizar() {
+        MappedByteBuffer actual;
+        long hasta;
+        synchronized (this) {
+            if (posicion == forzada) {
+                return;
+            }
+            actual = mapa;
+            hasta = posicion;
+        }
+        actual.force();
+        synchronized (this) {
+            forzada = Math.max(forzada, hasta);
+        }
+    }
+
+    /**
+     * Método que espera a la compactación en curso, sincroniza los últimos registros y
+     * cierra el segmento al cerrar la aplicación
+     * @throws IOException Si no se puede cerrar el segmento
+     * @throws InterruptedException Si se interrumpe la espera
+     */
+    @PreDestroy
+    public void cerrar() throws IOException, InterruptedException {
+        compactador.shutdown();
+        compactador.awaitTermination(ESPERA_CIERRE_S, TimeUnit.SECONDS);
+        sincronizador.shutdown();
+        sincronizar();
+        synchronized (this) {
+            canal.close();
+        }
+    }
+}
@@ -1,10 +1,34 @@
 package com.mrojas.cartas.services;
 
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
 import com.mrojas.cartas.data_structures.ArbolAVL;
+import com.mrojas.cartas.data_structures.GraficoArbol;
+import com.mrojas.cartas.data_structures.Recorrido;
+import com.mrojas.cartas.data_structures.Resolutor;
+import com.mrojas.cartas.errors.AdditionCardException;
+import com.mrojas.cartas.errors.BatchException;
+import com.mrojas.cartas.errors.CardNotFoundException;
 import com.mrojas.cartas.errors.DuplicateCardException;
+import com.mrojas.cartas.errors.GameNotFoundException;
+import com.mrojas.cartas.errors.ParentNodeException;
 import com.mrojas.cartas.models.Carta;
+import com.mrojas.cartas.models.Operacion;
 import com.mrojas.cartas.models.TipoCarta;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 /**
@@ -13,146 +37,636 @@ import org.springframework.stereotype.Service;
 @Service
 public class GameService {
     /**
-     * El conjunto de cartas que se estarán manejando durante el juego
+     * Registro de partidas activas, cada identificador de partida tiene su propia baraja
+     * de modo que los jugadores no comparten ni sobrescriben el estado de otra mesa. Las
+     * partidas sin uso se desalojan a disco y se cargan de nuevo al buscarlas.
+     */
+    @Autowired
+    AlmacenPartidas partidas;
+
+    /**
+     * Cantidad máxima de estados que puede explorar una búsqueda de solución
+     */
+    public static final long MAXIMO_EXPLORADOS = 10_000_000;
+    /**
+     * Milisegundos que una petición espera la búsqueda de una solución
+     */
+    private static final long TIEMPO_RESOLVER_MS = 5000;
+
+    /**
+     * Pool propio de las búsquedas de solución, acotado a la mitad de los procesadores
+     * para que una búsqueda no compita con las peticiones ni con el pool común
+     */
+    private final ForkJoinPool buscadores = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+
+    /**
+     * Buscador de soluciones, su tabla de estados sin salida se comparte entre todas las
+     * partidas ya que un estado sin salida lo es sin importar de qué partida provenga
+     */
+    private final Resolutor resolutor = new Resolutor(20, buscadores);
+
+    /**
+     * Servicio que dibuja y guarda las imágenes del estado de las barajas
+     */
+    @Autowired
+    RenderService render;
+
+    /**
+     * Bitácora en la que se registran las jugadas que modifican una partida, solo existe
+     * si está habilitada con la propiedad cartas.journal.enabled
+     */
+    @Autowired(required = false)
+    Bitacora bitacora;
+
+    /**
+     * El carácter más bajo entre los símbolos de los tipos de carta
+     */
+    private static final char PRIMER_SIMBOLO = '\u2660';
+    /**
+     * Tabla de tipos de carta indexada por su símbolo menos el primer símbolo
      */
-    private ArbolAVL baraja;
+    private static final TipoCarta[] TIPOS = new TipoCarta[8];
+    /**
+     * Tabla con el valor de las cartas cuyo nombre es un solo carácter, indexada por ese
+     * carácter. Los caracteres que no representan un valor tienen 0.
+     */
+    private static final byte[] VALORES = new byte[128];
+    /**
+     * Índice de presencia de las cartas de cada valor, indexado por el valor
+     */
+    private static final long[] POR_VALOR = new long[Carta.CARTAS_POR_TIPO + 1];
+
+    static {
+        for (TipoCarta tipo : TipoCarta.values()) {
+            TIPOS[tipo.getSimbolo() - PRIMER_SIMBOLO] = tipo;
+        }
+        VALORES['A'] = 1;
+        for (char digito = '2'; digito <= '9'; digito++) {
+            VALORES[digito] = (byte) (digito - '0');
+        }
+        VALORES['J'] = 11;
+        VALORES['Q'] = 12;
+        VALORES['K'] = 13;
+        for (int indice = 0; indice < Carta.TOTAL_CARTAS; indice++) {
+            POR_VALOR[Carta.desdeIndice(indice).getValor()] |= 1L << indice;
+        }
+    }
 
     /**
-     * Método que crea una nueva baraja de cartas e inserta cartas iniciales
+     * Método que crea una nueva partida con su baraja e inserta cartas iniciales. Cada carta
+     * se marca en un índice de presencia, con lo que los duplicados se detectan con una
+     * operación de bits, y como el índice respeta el orden por total las cartas quedan
+     * ordenadas sin comparaciones para construir la baraja balanceada de una sola vez.
      * @param cartas El conjunto de cartas con las que se iniciará el juego
+     * @return El identificador de la partida creada
+     * @throws DuplicateCardException si alguna carta se encuentra repetida
      */
-    public void start(Carta[] cartas){
-        baraja = new ArbolAVL();
+    public String start(Carta[] cartas){
+        long presentes = 0L;
         for (Carta carta : cartas) {
-            if (containsCard(carta)) {
+            long bit = 1L << carta.getIndice();
+            if ((presentes & bit) != 0) {
                 throw new DuplicateCardException(carta.toString());
             }
-            baraja.insertar(carta);
+            presentes |= bit;
+        }
+        ArbolAVL baraja = construirBaraja(presentes);
+        String partida = UUID.randomUUID().toString();
+        // La partida se agrega antes de registrarla para que una compactación que empiece
+        // después del registro la encuentre
+        partidas.agregar(partida, new Partida(baraja));
+        if (bitacora != null) {
+            bitacora.registrar(Bitacora.INICIO, partida, presentes);
+        }
+        return partida;
+    }
+
+    /**
+     * Método que construye una baraja balanceada con las cartas de un índice de presencia,
+     * como el índice respeta el orden por total las cartas quedan ordenadas sin comparaciones
+     * @param presentes El índice de presencia de las cartas
+     * @return La baraja con las cartas
+     */
+    private static ArbolAVL construirBaraja(long presentes){
+        Carta[] ordenadas = new Carta[Long.bitCount(presentes)];
+        for (int i = 0; presentes != 0; presentes &= presentes - 1) {
+            ordenadas[i++] = Carta.desdeIndice(Long.numberOfTrailingZeros(presentes));
         }
+        return ArbolAVL.construir(ordenadas);
+    }
+
+    /**
+     * Método que reconstruye las partidas registradas en la bitácora al iniciar el servicio,
+     * cada jugada se vuelve a aplicar en el mismo orden en que se aplicó originalmente. Las
+     * jugadas de una partida que aún no existe son anteriores a la baraja que registró una
+     * compactación y se ignoran. Al terminar la bitácora se compacta con las partidas del
+     * almacén.
+     */
+    @PostConstruct
+    void recuperar(){
+        if (bitacora == null) {
+            return;
+        }
+        Map<String, ByteArrayOutputStream> importaciones = new HashMap<>();
+        bitacora.recuperar((tipo, banderas, partida, cartas) -> {
+            if (tipo == Bitacora.INICIO) {
+                partidas.agregar(partida, new Partida(construirBaraja(cartas)));
+                return;
+            }
+            if (tipo == Bitacora.IMPORTACION) {
+                ByteArrayOutputStream preOrden = importaciones.computeIfAbsent(partida, p -> new ByteArrayOutputStream());
+                for (int i = 0; i < Long.BYTES; i++) {
+                    byte indice = (byte) (cartas >>> (i * Byte.SIZE));
+                    if (indice != Bitacora.RELLENO) {
+                        preOrden.write(indice);
+                    }
+                }
+                if ((banderas & Bitacora.CONTINUA) == 0) {
+                    partidas.agregar(partida, new Partida(ArbolAVL.importar(importaciones.remove(partida).toByteArray())));
+                }
+                return;
+            }
+            if (partidas.buscar(partida) == null) {
+                return;
+            }
+            Carta carta1 = Carta.desdeIndice(Long.numberOfTrailingZeros(cartas));
+            long resto = cartas & (cartas - 1);
+            Carta carta2 = resto == 0 ? null : Carta.desdeIndice(Long.numberOfTrailingZeros(resto));
+            escribir(partida, baraja -> {
+                if (tipo == Bitacora.INSERCION) {
+                    baraja.insertar(carta1);
+                } else {
+                    baraja.eliminarHojas(carta1, carta2);
+                }
+            });
+        });
+        bitacora.compactarCon(partidas::recorrer);
+    }
+
+    /**
+     * Método para exportar la baraja de una partida, un byte por carta con su índice en
+     * pre orden, lo que basta para reconstruir la forma exacta del árbol
+     * @param partida El identificador de la partida
+     * @return Los índices de las cartas en pre orden
+     */
+    public byte[] exportGame(String partida){
+        return getPartida(partida).leer(ArbolAVL::exportar);
+    }
+
+    /**
+     * Método que crea una nueva partida a partir de una baraja exportada, el árbol se
+     * reconstruye con la misma forma en O(n) sin pasar por insertar
+     * @param preOrden Los índices de las cartas en pre orden
+     * @return El identificador de la partida creada
+     * @throws IllegalArgumentException si no hay índices o si no son el pre orden de un
+     *         árbol AVL de cartas sin repetir
+     */
+    public String importGame(byte[] preOrden){
+        // ArbolAVL.importar acepta el pre orden vacío, que es como se guarda una partida
+        // terminada, pero una partida nueva debe tener cartas
+        if (preOrden.length == 0) {
+            throw new IllegalArgumentException("La baraja a importar no tiene cartas");
+        }
+        ArbolAVL baraja = ArbolAVL.importar(preOrden);
+        String partida = UUID.randomUUID().toString();
+        partidas.agregar(partida, new Partida(baraja));
+        if (bitacora != null) {
+            bitacora.registrar(Bitacora.IMPORTACION, partida, preOrden);
+        }
+        return partida;
     }
 
     /**
      * Método para insertar una carta en la baraja del juego
+     * @param partida El identificador de la partida
      * @param carta La carta a insertar
+     * @throws DuplicateCardException si la carta ya se encuentra en la baraja
+     */
+    public void addCard(String partida, Carta carta){
+        escribir(partida, baraja -> {
+            insertar(baraja, carta);
+            if (bitacora != null) {
+                bitacora.registrar(Bitacora.INSERCION, partida, 1L << carta.getIndice());
+            }
+        });
+    }
+
+    /**
+     * Método para eliminar una o dos cartas de la baraja del juego. Solo se pueden eliminar
+     * cartas que no sean nodo padre y cuyo valor sume 13. Las validaciones y la eliminación
+     * se hacen bajo el mismo bloqueo exclusivo.
+     * @param partida El identificador de la partida
+     * @param carta1 La primera carta a eliminar
+     * @param carta2 La segunda carta a eliminar, puede ser null para eliminar una sola carta
      */
-    public void addCard(Carta carta){
+    public void deleteCards(String partida, Carta carta1, Carta carta2){
+        escribir(partida, baraja -> {
+            eliminar(baraja, carta1, carta2);
+            if (bitacora != null) {
+                bitacora.registrar(Bitacora.ELIMINACION, partida, getCartas(carta1, carta2));
+            }
+        });
+    }
+
+    /**
+     * Método para aplicar un lote de jugadas en orden. Todas se validan y aplican bajo un
+     * solo bloqueo exclusivo sobre la misma copia de la baraja, cada jugada ve el resultado
+     * de las anteriores, y la copia solo se publica si todas las jugadas son válidas.
+     * @param partida El identificador de la partida
+     * @param operaciones Las jugadas a aplicar
+     * @return El resultado de cada jugada
+     * @throws BatchException si alguna jugada falla, en cuyo caso la baraja queda intacta
+     */
+    public List<Map<String, Object>> applyBatch(String partida, List<Operacion> operaciones){
+        List<Map<String, Object>> resultados = new ArrayList<>(operaciones.size());
+        escribir(partida, baraja -> {
+            int fallida = -1;
+            for (int i = 0; i < operaciones.size(); i++) {
+                Operacion operacion = operaciones.get(i);
+                Map<String, Object> resultado = new LinkedHashMap<>();
+                resultado.put("operation", operacion.toString());
+                if (fallida >= 0) {
+                    resultado.put("status", "SKIPPED");
+                } else {
+                    try {
+                        if (operacion.isInsercion()) {
+                            insertar(baraja, operacion.getCarta1());
+                        } else {
+                            eliminar(baraja, operacion.getCarta1(), operacion.getCarta2());
+                        }
+                        resultado.put("status", "OK");
+                    } catch (DuplicateCardException | CardNotFoundException | ParentNodeException
+                            | AdditionCardException e) {
+                        fallida = i;
+                        resultado.put("status", "FAILED");
+                        resultado.put("message", e.getMessage());
+                    }
+                }
+                resultados.add(resultado);
+            }
+            if (fallida >= 0) {
+                throw new BatchException(fallida, resultados);
+            }
+            if (bitacora != null && !operaciones.isEmpty()) {
+                byte[] tipos = new byte[operaciones.size()];
+                long[] cartas = new long[operaciones.size()];
+                for (int i = 0; i < tipos.length; i++) {
+                    Operacion operacion = operaciones.get(i);
+                    tipos[i] = operacion.isInsercion() ? Bitacora.INSERCION : Bitacora.ELIMINACION;
+                    cartas[i] = getCartas(operacion.getCarta1(), operacion.getCarta2());
+                }
+                bitacora.registrar(partida, tipos, cartas);
+            }
+        });
+        return resultados;
+    }
+
+    /**
+     * Método que obtiene el índice de presencia de las cartas de una jugada
+     * @param carta1 La primera carta
+     * @param carta2 La segunda carta, puede ser null
+     * @return El índice con las cartas de la jugada
+     */
+    private static long getCartas(Carta carta1, Carta carta2){
+        return (1L << carta1.getIndice()) | (carta2 == null ? 0L : 1L << carta2.getIndice());
+    }
+
+    /**
+     * Método que inserta una carta en una baraja validando que no esté repetida
+     * @param baraja La baraja sobre la que se juega
+     * @param carta La carta a insertar
+     */
+    private void insertar(ArbolAVL baraja, Carta carta){
+        if (baraja.contiene(carta)) {
+            throw new DuplicateCardException(carta.toString());
+        }
         baraja.insertar(carta);
     }
 
     /**
-     * Método para eliminar una carta en la baraja del juego
-     * @param carta La carta a eliminar
+     * Método que elimina una o dos cartas de una baraja validando las reglas del juego. La
+     * presencia y si son hojas se obtiene en un solo descenso, y ambas cartas se eliminan
+     * en una sola pasada.
+     * @param baraja La baraja sobre la que se juega
+     * @param carta1 La primera carta a eliminar
+     * @param carta2 La segunda carta a eliminar, puede ser null para eliminar una sola carta
      */
-    public void deleteCard(Carta carta){
-        baraja.eliminar(carta);
+    private void eliminar(ArbolAVL baraja, Carta carta1, Carta carta2){
+        int consulta = baraja.consultarHojas(carta1, carta2);
+        if ((consulta & ArbolAVL.PRESENTE_1) == 0) {
+            throw new CardNotFoundException(carta1.toString());
+        }
+        if (carta2 == null) {
+            if ((consulta & ArbolAVL.HOJA_1) == 0) {
+                throw new ParentNodeException(carta1.toString());
+            }
+            if (carta1.getValor() != 13) {
+                throw new AdditionCardException(carta1.toString());
+            }
+        } else {
+            if ((consulta & ArbolAVL.PRESENTE_2) == 0) {
+                throw new CardNotFoundException(carta2.toString());
+            }
+            if ((consulta & ArbolAVL.HOJA_1) == 0) {
+                throw new ParentNodeException(carta1.toString());
+            }
+            if ((consulta & ArbolAVL.HOJA_2) == 0) {
+                throw new ParentNodeException(carta2.toString());
+            }
+            if ((carta1.getValor() + carta2.getValor()) != 13) {
+                throw new AdditionCardException(carta1.toString(), carta2.toString());
+            }
+        }
+        baraja.eliminarHojas(carta1, carta2);
+    }
+
+    /**
+     * Método para obtener todas las jugadas de eliminación válidas. Las hojas de la baraja
+     * se obtienen de la raíz y se separan por valor con una operación de bits, de modo que
+     * cada carta solo se combina con el grupo cuyo valor completa 13.
+     * @param partida El identificador de la partida
+     * @return Las jugadas de una sola carta bajo 'singles' y las de dos cartas bajo 'pairs'
+     */
+    public Map<String, List<List<Carta>>> getMoves(String partida){
+        long hojas = getPartida(partida).leer(ArbolAVL::getHojas);
+        List<List<Carta>> solas = new ArrayList<>();
+        for (long reyes = hojas & POR_VALOR[13]; reyes != 0; reyes &= reyes - 1) {
+            solas.add(List.of(Carta.desdeIndice(Long.numberOfTrailingZeros(reyes))));
+        }
+        List<List<Carta>> pares = new ArrayList<>();
+        for (int valor = 1; valor <= 6; valor++) {
+            long complementos = hojas & POR_VALOR[13 - valor];
+            for (long menores = hojas & POR_VALOR[valor]; menores != 0; menores &= menores - 1) {
+                Carta menor = Carta.desdeIndice(Long.numberOfTrailingZeros(menores));
+                for (long mayores = complementos; mayores != 0; mayores &= mayores - 1) {
+                    pares.add(List.of(menor, Carta.desdeIndice(Long.numberOfTrailingZeros(mayores))));
+                }
+            }
+        }
+        Map<String, List<List<Carta>>> jugadas = new LinkedHashMap<>();
+        jugadas.put("singles", solas);
+        jugadas.put("pairs", pares);
+        return jugadas;
+    }
+
+    /**
+     * Método para decidir si la baraja se puede vaciar por completo con las jugadas del
+     * juego, en cuyo caso se devuelven las jugadas en orden
+     * @param partida El identificador de la partida
+     * @param limite La cantidad máxima de estados a explorar
+     * @return El resultado de la búsqueda, desconocido si se agota el límite o el tiempo
+     * @throws IllegalArgumentException si el límite no es positivo o pasa de MAXIMO_EXPLORADOS
+     */
+    public Resolutor.Solucion solve(String partida, long limite){
+        if (limite <= 0 || limite > MAXIMO_EXPLORADOS) {
+            throw new IllegalArgumentException("La cantidad de estados a explorar debe estar entre 1 y "
+                    + MAXIMO_EXPLORADOS);
+        }
+        return getPartida(partida).leer(baraja -> resolutor.resolver(baraja, limite, TIEMPO_RESOLVER_MS));
+    }
+
+    /**
+     * Método que detiene las búsquedas de solución al cerrar la aplicación
+     */
+    @PreDestroy
+    public void detener(){
+        buscadores.shutdownNow();
     }
 
     /**
-     * Método para gráficar el estado actual del arbol avl
-     * @param path La ruta en la cual se guardará la imagen
+     * Método para gráficar el estado actual del arbol avl, el dibujo se hace en segundo
+     * plano y se comparte entre todas las partidas cuyo árbol tenga la misma forma
+     * @param partida El identificador de la partida
+     * @return La clave de la imagen con el estado actual del arbol
      */
-    public void getStatusTree(String path){
-        baraja.graficar(path);
+    public String getStatusTree(String partida){
+        return getPartida(partida).leer(render::solicitar);
+    }
+
+    /**
+     * Método para obtener el dibujo del estado actual del arbol avl, con el que se puede
+     * escribir el código de graphviz o el SVG directamente en la respuesta
+     * @param partida El identificador de la partida
+     * @return El dibujo del arbol
+     */
+    public GraficoArbol getStatusGraph(String partida){
+        return getPartida(partida).leer(ArbolAVL::getGrafico);
+    }
+
+    /**
+     * Método para obtener una imagen del estado del arbol avl solicitada previamente
+     * @param clave La clave de la imagen
+     * @return Los bytes de la imagen
+     */
+    public byte[] getStatusImage(String clave){
+        return render.getImagen(clave);
     }
 
     /**
      * Método para obtener las cartas en cierto nivel del arbol avl
+     * @param partida El identificador de la partida
      * @param level el nivel que se quiere obtener
      * @return Las cartas en el nivel indicado
      */
-    public Carta[] getLevelTree(int level){
-        return baraja.getNivel(level);
+    public Carta[] getLevelTree(String partida, int level){
+        return getPartida(partida).leer(baraja -> baraja.getNivel(level));
+    }
+
+    /**
+     * Método para obtener las cartas de todos los niveles del arbol avl
+     * @param partida El identificador de la partida
+     * @return Las cartas de cada nivel, comenzando por la raiz
+     */
+    public Carta[][] getLevelsTree(String partida){
+        return getPartida(partida).leer(ArbolAVL::getNiveles);
     }
 
     /**
      * Método para obtener los diferentes recorridos del arbol avl
+     * @param partida El identificador de la partida
      * @param order El tipo de recorrido que se le pide al arbol
-     * @return El recorrido solicitado
+     * @return Un iterador del recorrido solicitado, el recorrido se calcula una sola vez
+     *         por cada versión de la baraja
+     * @throws IllegalArgumentException si el tipo de recorrido no existe
+     */
+    public Iterator<Carta> getTransversalTree(String partida, String order){
+        return getTransversalTree(partida, order, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Método para obtener una página de los diferentes recorridos del arbol avl. El recorrido
+     * completo se reutiliza mientras el arbol no cambie; una página parcial se obtiene con
+     * los tamaños de los subárboles sin generar el recorrido completo.
+     * @param partida El identificador de la partida
+     * @param order Es el tipo de recorrido, pueden ser 'preOrder', 'inOrder' o 'postOrder'
+     * @param offset La posición del recorrido en la que empieza la página
+     * @param limit La cantidad máxima de cartas de la página
+     * @return Retorna un iterador perezoso sobre las cartas de la página
+     */
+    public Iterator<Carta> getTransversalTree(String partida, String order, int offset, int limit){
+        Partida juego = getPartida(partida);
+        Recorrido recorrido = Recorrido.desdeNombre(order);
+        if (recorrido == null) {
+            throw new IllegalArgumentException("El recorrido ".concat(String.valueOf(order)).concat(" no existe"));
+        }
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("La posicion inicial y la cantidad de cartas no pueden ser negativas");
+        }
+        if (offset == 0 && limit == Integer.MAX_VALUE) {
+            return juego.leer(baraja -> baraja.getRecorrido(recorrido).iterator());
+        }
+        return juego.leer(baraja -> baraja.iterador(recorrido, offset, limit));
+    }
+
+    /**
+     * Método para obtener las cartas cuyo total se encuentra en un rango, solo se visitan
+     * los subárboles que contienen cartas del rango
+     * @param partida El identificador de la partida
+     * @param min El menor total del rango, incluido
+     * @param max El mayor total del rango, incluido
+     * @return Un iterador perezoso con las cartas del rango ordenadas por total
      */
-    public Carta[] getTransversalTree(String order){
-        Carta[] cartas = null;
-        switch (order) {
-            case "inOrder"-> cartas = baraja.inOrder();
-            case "preOrder" -> cartas = baraja.preOrder();
-            case "postOrder" -> cartas = baraja.posOrder();
+    public Iterator<Carta> getRangeTree(String partida, int min, int max){
+        return getPartida(partida).leer(baraja -> baraja.buscarRango(min, max));
+    }
+
+    /**
+     * Método para obtener las cartas de un tipo
+     * @param partida El identificador de la partida
+     * @param suit El tipo de carta, ya sea su símbolo o su nombre
+     * @return Un iterador perezoso con las cartas del tipo ordenadas por valor
+     * @throws IllegalArgumentException si el tipo de carta no existe
+     */
+    public Iterator<Carta> getSuitTree(String partida, String suit){
+        TipoCarta tipo = crearTipo(suit);
+        if (tipo == null) {
+            throw new IllegalArgumentException("El tipo de carta ".concat(String.valueOf(suit)).concat(" no existe"));
         }
-        return cartas;
+        return getPartida(partida).leer(baraja -> baraja.buscarTipo(tipo));
     }
 
     /**
      * Método para saber la altura que tiene el arbol actualmente
+     * @param partida El identificador de la partida
      * @return El valor de la altura del árbol. Si es null retorna -1
      */
-    public int getTreeHeight(){
-        return baraja.altura();
+    public int getTreeHeight(String partida){
+        return getPartida(partida).leer(ArbolAVL::altura);
     }
 
     /**
      * Método para saber si la carta se encuentra dentro de la baraja
+     * @param partida El identificador de la partida
      * @param carta La carta a buscar
      * @return Retorna true si la carta fue encontrada, de lo contrario es false.
      */
-    public boolean containsCard(Carta carta){
-        return baraja.buscar(carta) == null ? false : true;
+    public boolean containsCard(String partida, Carta carta){
+        return getPartida(partida).leer(baraja -> baraja.contiene(carta));
+    }
+
+    /**
+     * Método para saber cuántas cartas quedan en la baraja
+     * @param partida El identificador de la partida
+     * @return La cantidad de cartas que quedan en la baraja
+     */
+    public int getRemainingCards(String partida){
+        return getPartida(partida).leer(ArbolAVL::getCantidad);
     }
 
     /**
      * Método para saber si una carta es un nodo padre
+     * @param partida El identificador de la partida
      * @param carta La carta que se desea comprobar
      * @return Retorna true si la carta es nodo padre, de lo contrario retorna false
      */
-    public boolean isParentCard(Carta carta){
-        return baraja.altura(baraja.buscar(carta)) != 0 ? true : false;
+    public boolean isParentCard(String partida, Carta carta){
+        return getPartida(partida).leer(baraja -> isParentCard(baraja, carta));
     }
 
     /**
-     * Método para crear una nueva carta a raiz de su representación en texto
-     * @param texto El texto que representa la carta a crear
-     * @return Retorna null si el texto no es válido, de lo contrario retorna una nueva Carta
+     * Método para saber si una carta es un nodo padre dentro de una baraja
+     * @param baraja La baraja en la que se busca la carta
+     * @param carta La carta que se desea comprobar
+     * @return Retorna true si la carta es nodo padre, de lo contrario retorna false
+     */
+    private boolean isParentCard(ArbolAVL baraja, Carta carta){
+        return baraja.altura(baraja.buscar(carta)) != 0;
+    }
+
+    /**
+     * Método para obtener una partida activa
+     * @param partida El identificador de la partida
+     * @return La partida con su baraja
+     * @throws GameNotFoundException si la partida no existe
+     */
+    private Partida getPartida(String partida){
+        Partida juego = partida == null ? null : partidas.buscar(partida);
+        if (juego == null) {
+            throw new GameNotFoundException(partida);
+        }
+        return juego;
+    }
+
+    /**
+     * Método para modificar la baraja de una partida de forma exclusiva. Si la partida se
+     * desalojó antes de tomar su cerrojo, se vuelve a cargar y se repite la modificación.
+     * @param partida El identificador de la partida
+     * @param escritura La modificación a realizar sobre la baraja
+     * @throws GameNotFoundException si la partida no existe
+     */
+    private void escribir(String partida, Consumer<ArbolAVL> escritura){
+        while (!getPartida(partida).escribir(escritura)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Método para obtener la carta que corresponde a su representación en texto. El valor y
+     * el tipo se leen directamente de los caracteres por medio de tablas y se devuelve la
+     * instancia única de la carta, por lo que no se crea ningún objeto.
+     * @param texto El texto que representa la carta
+     * @return Retorna null si el texto no es válido, de lo contrario retorna la Carta
      */
     public Carta crearCarta(String texto){
-        if (texto == null || texto.isBlank()) {
+        if (texto == null) {
+            return null;
+        }
+        int largo = texto.length();
+        if (largo < 2 || largo > 3) {
+            return null;
+        }
+        int simbolo = texto.charAt(largo - 1) - PRIMER_SIMBOLO;
+        if (simbolo < 0 || simbolo >= TIPOS.length || TIPOS[simbolo] == null) {
             return null;
         }
-        boolean valida = true;
-        TipoCarta tipo = null;
-        String nombre = "";
         int valor = 0;
-        switch (texto.charAt(texto.length()-1)) {
-            case '♣' -> tipo = TipoCarta.TREBOL;
-            case '♦' -> tipo = TipoCarta.DIAMANTE;
-            case '♥' -> tipo = TipoCarta.CORAZON;
-            case '♠' -> tipo = TipoCarta.PICA;
-            default -> valida = false;
-        }
-
-        switch (texto.length()) {
-            case 2 -> nombre += Character.toString(texto.charAt(0));
-            case 3 -> nombre += Character.toString(texto.charAt(0)) + Character.toString(texto.charAt(1));
-            default -> valida = false;
-        }
-
-        switch (nombre) {
-            case "A"-> valor = 1;
-            case "2"-> valor = 2;
-            case "3"-> valor = 3;
-            case "4"-> valor = 4;
-            case "5"-> valor = 5;
-            case "6"-> valor = 6;
-            case "7"-> valor = 7;
-            case "8"-> valor = 8;
-            case "9"-> valor = 9;
-            case "10"-> valor = 10;
-            case "J"-> valor = 11;
-            case "Q"-> valor = 12;
-            case "K"-> valor = 13;
-            default -> valida = false;
-        }
-
-        if (!valida) {
-            return  null;
-        }
-
-        return new Carta(nombre, tipo, valor);
+        if (largo == 2) {
+            char caracter = texto.charAt(0);
+            valor = caracter < VALORES.length ? VALORES[caracter] : 0;
+        } else if (texto.charAt(0) == '1' && texto.charAt(1) == '0') {
+            valor = 10;
+        }
+        return valor == 0 ? null : Carta.de(TIPOS[simbolo], valor);
+    }
+
+    /**
+     * Método para obtener el tipo de carta que corresponde a su símbolo o a su nombre
+     * @param texto El símbolo o el nombre del tipo de carta, el nombre no distingue mayúsculas
+     * @return Retorna null si el texto no es válido, de lo contrario retorna el TipoCarta
+     */
+    public TipoCarta crearTipo(String texto){
+        if (texto == null) {
+            return null;
+        }
+        if (texto.length() == 1) {
+            int simbolo = texto.charAt(0) - PRIMER_SIMBOLO;
+            return simbolo < 0 || simbolo >= TIPOS.length ? null : TIPOS[simbolo];
+        }
+        for (TipoCarta tipo : TipoCarta.values()) {
+            if (tipo.name().equalsIgnoreCase(texto)) {
+                return tipo;
+            }
+        }
+        return null;
     }
 }
@@ -0,0 +1,151 @@
+/**
+ * @file Partida.java
+ * @author 202030799 Manuel Rojas
+ * @brief Clase para representar una partida activa y su control de concurrencia
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.services;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.mrojas.cartas.data_structures.ArbolAVL;
+
+/**
+ * Clase que agrupa la baraja de una partida con el cerrojo que la protege.
+ * Las lecturas trabajan sobre una instantánea de la baraja y no toman ningún
+ * cerrojo; las escrituras toman el sello exclusivo para que sus validaciones y
+ * la modificación vean el mismo estado.
+ */
+public class Partida {
+    /**
+     * La baraja de cartas de la partida
+     */
+    private final ArbolAVL baraja;
+    /**
+     * Cerrojo con sellos que serializa a los escritores de la baraja
+     */
+    private final StampedLock cerrojo = new StampedLock();
+    /**
+     * Momento del último acceso a la partida según System.nanoTime
+     */
+    private volatile long ultimoAcceso = System.nanoTime();
+    /**
+     * Indica si la partida se guardó en disco y se quitó de memoria, en cuyo caso ya no
+     * acepta escrituras y se debe volver a cargar
+     */
+    private volatile boolean desalojada;
+
+    /**
+     * Constructor de la clase Partida
+     * @param baraja La baraja con la que inicia la partida
+     */
+    public Partida(ArbolAVL baraja){
+        this.baraja = baraja;
+    }
+
+    /**
+     * Método para realizar una lectura sobre la baraja. La consulta recibe una instantánea
+     * de la baraja, por lo que aunque haga varias operaciones todas ven la misma versión
+     * del árbol y ninguna escritura concurrente la puede alterar.
+     * @param <T> El tipo del resultado de la lectura
+     * @param lectura La consulta a realizar sobre la baraja
+     * @return El resultado de la consulta
+     */
+    public <T> T leer(Function<ArbolAVL, T> lectura){
+        return lectura.apply(baraja.instantanea());
+    }
+
+    /**
+     * Método para modificar la baraja de forma exclusiva, las validaciones que se hagan
+     * dentro de la modificación ven el mismo estado sobre el que se escribe. La modificación
+     * se aplica sobre una instantánea que se publica al terminar, de modo que los lectores
+     * ven todos sus cambios o ninguno, y si la modificación falla la baraja queda intacta.
+     * @param escritura La modificación a realizar sobre la baraja
+     * @return false si la partida fue desalojada y la modificación no se aplicó
+     */
+    public boolean escribir(Consumer<ArbolAVL> escritura){
+        long sello = cerrojo.writeLock();
+        try {
+            if (desalojada) {
+                return false;
+            }
+            ArbolAVL copia = baraja.instantanea();
+            escritura.accept(copia);
+            baraja.publicar(copia);
+            return true;
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Método para leer la baraja sin que ninguna escritura la pueda modificar hasta que la
+     * consulta termine. La compactación de la bitácora lo usa para que la baraja que
+     * registra quede antes de cualquier jugada posterior.
+     * @param lectura La consulta a realizar sobre la baraja
+     * @return false si la partida fue desalojada y la consulta no se realizó
+     */
+    public boolean leerExclusivo(Consumer<ArbolAVL> lectura){
+        long sello = cerrojo.writeLock();
+        try {
+            if (desalojada) {
+                return false;
+            }
+            lectura.accept(baraja.instantanea());
+            return true;
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Método para desalojar la partida de memoria. Solo se desaloja si ninguna escritura
+     * la tiene tomada, y una vez guardada ya no acepta escrituras, por lo que ninguna
+     * modificación se puede perder entre que se guarda y que se quita de memoria.
+     * @param guardar La operación que guarda la baraja en disco
+     * @return true si la partida fue desalojada
+     */
+    public boolean desalojar(Consumer<ArbolAVL> guardar){
+        long sello = cerrojo.tryWriteLock();
+        if (sello == 0L) {
+            return false;
+        }
+        try {
+            if (!desalojada) {
+                guardar.accept(baraja.instantanea());
+                desalojada = true;
+            }
+            return true;
+        } finally {
+            cerrojo.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Método para registrar un acceso a la partida
+     */
+    public void tocar(){
+        ultimoAcceso = System.nanoTime();
+    }
+
+    /**
+     * Método para obtener el momento del último acceso a la partida
+     * @return El momento del último acceso según System.nanoTime
+     */
+    public long getUltimoAcceso(){
+        return ultimoAcceso;
+    }
+
+    /**
+     * Método para saber si la partida fue desalojada de memoria
+     * @return true si la partida fue desalojada
+     */
+    public boolean isDesalojada(){
+        return desalojada;
+    }
+}
@@ -0,0 +1,326 @@
+/**
+ * @file RenderService.java
+ * @author 202030799 Manuel Rojas
+ * @brief Clase de servicio para generar y guardar las imágenes del árbol
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.services;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.mrojas.cartas.data_structures.ArbolAVL;
+import com.mrojas.cartas.data_structures.GraficoArbol;
+import com.mrojas.cartas.errors.ImageNotFoundException;
+import com.mrojas.cartas.errors.RenderBusyException;
+import com.mrojas.cartas.errors.RenderException;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * Clase de servicio que dibuja el árbol fuera del hilo de la petición. Las imágenes se
+ * identifican por la forma del árbol, por lo que varias peticiones sobre el mismo estado
+ * comparten un solo dibujo, ya sea terminado en la caché o todavía en curso.
+ *
+ * La clave de una imagen es la huella del árbol, una firma y su pre orden exportado, por
+ * lo que dos árboles distintos nunca comparten clave aunque sus huellas choquen, y una
+ * clave basta para reconstruir el árbol: si la imagen fue desalojada de la caché se vuelve
+ * a dibujar. La firma es un HMAC del pre orden con un secreto que se genera al iniciar el
+ * proceso, de modo que solo se vuelven a dibujar claves que entregó este proceso y un
+ * cliente no puede llenar la caché con árboles arbitrarios. Tras reiniciar el servidor las
+ * claves anteriores dejan de ser válidas y se debe solicitar de nuevo el estado del árbol.
+ */
+@Service
+public class RenderService {
+    /**
+     * El formato en el que se codifican las imágenes
+     */
+    public static final String FORMATO = "jpg";
+    /**
+     * La cantidad máxima de imágenes que se guardan en la caché
+     */
+    private static final int CAPACIDAD = 128;
+    /**
+     * La cantidad máxima de dibujos que pueden esperar en la cola del ejecutor
+     */
+    private static final int PENDIENTES = 64;
+    /**
+     * El tiempo máximo que una petición espera por un dibujo en curso
+     */
+    private static final long ESPERA_MS = 5000;
+    /**
+     * La cantidad de dígitos hexadecimales de la huella al inicio de la clave
+     */
+    private static final int DIGITOS_HUELLA = 16;
+    /**
+     * La cantidad de dígitos hexadecimales de la firma, después de la huella
+     */
+    private static final int DIGITOS_FIRMA = 16;
+    /**
+     * Los dígitos hexadecimales, indexados por su valor
+     */
+    private static final char[] HEXADECIMAL = "0123456789abcdef".toCharArray();
+    /**
+     * El algoritmo con el que se firman las claves
+     */
+    private static final String ALGORITMO_FIRMA = "HmacSHA256";
+    /**
+     * El secreto con el que se firman las claves, distinto en cada proceso
+     */
+    private static final SecretKeySpec SECRETO = generarSecreto();
+    /**
+     * Un firmador por hilo, ya que Mac no es seguro para hilos
+     */
+    private static final ThreadLocal<Mac> FIRMADORES = ThreadLocal.withInitial(() -> {
+        try {
+            Mac firmador = Mac.getInstance(ALGORITMO_FIRMA);
+            firmador.init(SECRETO);
+            return firmador;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /**
+     * Caché de imágenes terminadas, se desaloja la que lleva más tiempo sin usarse
+     */
+    private final Map<String, byte[]> imagenes = Collections.synchronizedMap(
+            new LinkedHashMap<String, byte[]>(CAPACIDAD, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, byte[]> mayor) {
+                    return size() > CAPACIDAD;
+                }
+            });
+    /**
+     * Dibujos en curso, una petición que llega mientras se dibuja su estado se une a este
+     */
+    private final Map<String, CompletableFuture<byte[]>> enCurso = new ConcurrentHashMap<>();
+    /**
+     * Ejecutor acotado para los dibujos, si la cola se llena el hilo que solicita dibuja
+     * por su cuenta en lugar de acumular trabajo sin límite
+     */
+    private final ThreadPoolExecutor ejecutor;
+
+    /**
+     * Constructor de la clase RenderService
+     */
+    public RenderService() {
+        AtomicInteger hilos = new AtomicInteger(1);
+        int cantidad = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+        ejecutor = new ThreadPoolExecutor(cantidad, cantidad, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(PENDIENTES), tarea -> {
+                    Thread hilo = new Thread(tarea, "render-" + hilos.getAndIncrement());
+                    hilo.setDaemon(true);
+                    return hilo;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        ejecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Método para obtener la clave con la que se identifica la imagen de un árbol
+     * @param baraja El árbol
+     * @return La huella, la firma y el pre orden del árbol en hexadecimal
+     */
+    public static String getClave(ArbolAVL baraja) {
+        byte[] preOrden = baraja.exportar();
+        char[] clave = new char[DIGITOS_HUELLA + DIGITOS_FIRMA + 2 * preOrden.length];
+        escribirHexadecimal(baraja.getHuella(), clave, 0);
+        escribirHexadecimal(firmar(preOrden), clave, DIGITOS_HUELLA);
+        int posicion = DIGITOS_HUELLA + DIGITOS_FIRMA;
+        for (byte indice : preOrden) {
+            clave[posicion++] = HEXADECIMAL[(indice >>> 4) & 0xf];
+            clave[posicion++] = HEXADECIMAL[indice & 0xf];
+        }
+        return new String(clave);
+    }
+
+    /**
+     * Método que genera el secreto con el que este proceso firma las claves
+     * @return Un secreto aleatorio de 32 bytes
+     */
+    private static SecretKeySpec generarSecreto() {
+        byte[] secreto = new byte[32];
+        new SecureRandom().nextBytes(secreto);
+        return new SecretKeySpec(secreto, ALGORITMO_FIRMA);
+    }
+
+    /**
+     * Método que escribe un número en 16 dígitos hexadecimales
+     * @param valor El número
+     * @param destino El arreglo en el que se escribe
+     * @param inicio La posición del primer dígito
+     */
+    private static void escribirHexadecimal(long valor, char[] destino, int inicio) {
+        for (int i = 15; i >= 0; i--) {
+            destino[inicio + i] = HEXADECIMAL[(int) valor & 0xf];
+            valor >>>= 4;
+        }
+    }
+
+    /**
+     * Método que firma un pre orden con el secreto del proceso
+     * @param preOrden El pre orden exportado del árbol
+     * @return Los primeros 8 bytes del HMAC del pre orden
+     */
+    private static long firmar(byte[] preOrden) {
+        byte[] firma = FIRMADORES.get().doFinal(preOrden);
+        long valor = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            valor = (valor << 8) | (firma[i] & 0xff);
+        }
+        return valor;
+    }
+
+    /**
+     * Método que reconstruye el árbol de una clave, solo si la clave la entregó este proceso
+     * @param clave La clave de la imagen
+     * @return El árbol, null si la clave no corresponde a ningún árbol o su firma no es válida
+     */
+    private static ArbolAVL getBaraja(String clave) {
+        int inicio = DIGITOS_HUELLA + DIGITOS_FIRMA;
+        if (clave.length() < inicio || clave.length() % 2 != 0) {
+            return null;
+        }
+        long firma = 0;
+        for (int i = DIGITOS_HUELLA; i < inicio; i++) {
+            int digito = Character.digit(clave.charAt(i), 16);
+            if (digito < 0) {
+                return null;
+            }
+            firma = (firma << 4) | digito;
+        }
+        byte[] preOrden = new byte[(clave.length() - inicio) / 2];
+        for (int i = 0; i < preOrden.length; i++) {
+            int alto = Character.digit(clave.charAt(inicio + 2 * i), 16);
+            int bajo = Character.digit(clave.charAt(inicio + 2 * i + 1), 16);
+            if (alto < 0 || bajo < 0) {
+                return null;
+            }
+            preOrden[i] = (byte) (alto << 4 | bajo);
+        }
+        // Se revisa la firma antes de armar el árbol, una clave ajena no cuesta más que el HMAC
+        if (firma != firmar(preOrden)) {
+            return null;
+        }
+        try {
+            ArbolAVL baraja = ArbolAVL.importar(preOrden);
+            return getClave(baraja).equals(clave) ? baraja : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Método para solicitar la imagen de un árbol. Si la imagen ya está en la caché o se
+     * está dibujando no se hace nada más; de lo contrario se programa su dibujo.
+     * @param baraja Una instantánea del árbol a dibujar
+     * @return La clave con la que se obtiene la imagen
+     */
+    public String solicitar(ArbolAVL baraja) {
+        String clave = getClave(baraja);
+        if (imagenes.get(clave) == null) {
+            programar(clave, baraja);
+        }
+        return clave;
+    }
+
+    /**
+     * Método que programa el dibujo de un árbol, solo el primero que registra la clave
+     * lo envía al ejecutor y los demás reciben el dibujo en curso
+     * @param clave La clave de la imagen
+     * @param baraja Una instantánea del árbol a dibujar
+     * @return El dibujo del árbol
+     */
+    private CompletableFuture<byte[]> programar(String clave, ArbolAVL baraja) {
+        CompletableFuture<byte[]> nuevo = new CompletableFuture<>();
+        CompletableFuture<byte[]> previo = enCurso.putIfAbsent(clave, nuevo);
+        if (previo != null) {
+            return previo;
+        }
+        byte[] terminada = imagenes.get(clave);
+        if (terminada != null) {
+            // Otro dibujo del mismo estado terminó entre la consulta a la caché y el registro
+            enCurso.remove(clave, nuevo);
+            nuevo.complete(terminada);
+            return nuevo;
+        }
+        GraficoArbol grafico = baraja.getGrafico();
+        ejecutor.execute(() -> {
+            try {
+                ByteArrayOutputStream salida = new ByteArrayOutputStream();
+                grafico.escribirImagen(FORMATO, salida);
+                byte[] imagen = salida.toByteArray();
+                imagenes.put(clave, imagen);
+                nuevo.complete(imagen);
+            } catch (IOException | RuntimeException e) {
+                nuevo.completeExceptionally(e);
+            } finally {
+                enCurso.remove(clave, nuevo);
+            }
+        });
+        return nuevo;
+    }
+
+    /**
+     * Método para obtener una imagen, si todavía se está dibujando espera a que termine y
+     * si no está en la caché se vuelve a dibujar a partir de la clave
+     * @param clave La clave de la imagen
+     * @return Los bytes de la imagen codificada
+     * @throws ImageNotFoundException si la clave no corresponde a ningún árbol
+     * @throws RenderBusyException si el dibujo no termina a tiempo
+     * @throws RenderException si el dibujo falla
+     */
+    public byte[] getImagen(String clave) {
+        byte[] imagen = imagenes.get(clave);
+        if (imagen != null) {
+            return imagen;
+        }
+        CompletableFuture<byte[]> dibujo = enCurso.get(clave);
+        if (dibujo == null) {
+            ArbolAVL baraja = getBaraja(clave);
+            if (baraja == null) {
+                throw new ImageNotFoundException(clave);
+            }
+            dibujo = programar(clave, baraja);
+        }
+        try {
+            return dibujo.get(ESPERA_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RenderBusyException(clave, TimeUnit.MILLISECONDS.toSeconds(ESPERA_MS));
+        } catch (ExecutionException e) {
+            throw new RenderException(clave, e.getCause());
+        } catch (TimeoutException e) {
+            // El dibujo sigue en curso y queda en la caché al terminar
+            throw new RenderBusyException(clave, TimeUnit.MILLISECONDS.toSeconds(ESPERA_MS));
+        }
+    }
+
+    /**
+     * Método que detiene el ejecutor al cerrar la aplicación
+     */
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+}
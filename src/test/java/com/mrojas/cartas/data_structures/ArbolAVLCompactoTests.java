@@ -0,0 +1,90 @@
+/**
+ * @file ArbolAVLCompactoTests.java
+ * @author 202030799 Manuel Rojas
+ * @brief Pruebas de equivalencia entre ArbolAVLCompacto y ArbolAVL
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.data_structures;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import com.mrojas.cartas.data_structures.ArbolAVL.Nodo;
+import com.mrojas.cartas.models.Carta;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de ArbolAVLCompacto, con las mismas operaciones debe quedar con la misma forma
+ * que ArbolAVL, por lo que sus recorridos y niveles deben coincidir
+ */
+class ArbolAVLCompactoTests {
+
+    /**
+     * Método que revisa que los dos árboles tengan las mismas cartas con la misma forma
+     * @param esperado El árbol de referencia
+     * @param compacto El árbol sobre arreglos
+     */
+    private static void comparar(ArbolAVL esperado, ArbolAVLCompacto compacto) {
+        assertEquals(esperado.getCantidad(), compacto.getCantidad());
+        assertEquals(esperado.altura(), compacto.altura());
+        assertArrayEquals(esperado.inOrder(), compacto.inOrder());
+        assertArrayEquals(esperado.preOrder(), compacto.preOrder());
+        assertArrayEquals(esperado.posOrder(), compacto.posOrder());
+        for (int nivel = -2; nivel <= esperado.altura() + 2; nivel++) {
+            assertArrayEquals(esperado.getNivel(nivel), compacto.getNivel(nivel), "nivel " + nivel);
+        }
+        for (int indice = 0; indice < Carta.TOTAL_CARTAS; indice++) {
+            Carta carta = Carta.desdeIndice(indice);
+            Nodo nodo = esperado.buscar(carta);
+            assertEquals(nodo != null, compacto.contiene(carta));
+            assertEquals(nodo != null && (nodo.izquierda != null || nodo.derecha != null), compacto.esPadre(carta));
+        }
+    }
+
+    @Test
+    void lasOperacionesDejanLaMismaForma() {
+        Random azar = new Random(6);
+        for (int prueba = 0; prueba < 200; prueba++) {
+            ArbolAVL esperado = new ArbolAVL();
+            // Capacidad mínima para que los arreglos crezcan durante la prueba
+            ArbolAVLCompacto compacto = new ArbolAVLCompacto(1);
+            for (int operacion = 0; operacion < 120; operacion++) {
+                Carta carta = Carta.desdeIndice(azar.nextInt(Carta.TOTAL_CARTAS));
+                if (!esperado.contiene(carta)) {
+                    esperado.insertar(carta);
+                    compacto.insertar(carta);
+                } else {
+                    // Una carta con dos hijos no se elimina en ninguno de los dos
+                    esperado.eliminar(carta);
+                    compacto.eliminar(carta);
+                }
+                comparar(esperado, compacto);
+            }
+        }
+    }
+
+    @Test
+    void construirDejaLaMismaForma() {
+        for (int cantidad = 0; cantidad <= Carta.TOTAL_CARTAS; cantidad++) {
+            Carta[] ordenadas = new Carta[cantidad];
+            for (int i = 0; i < cantidad; i++) {
+                ordenadas[i] = Carta.desdeIndice(i);
+            }
+            comparar(ArbolAVL.construir(ordenadas), ArbolAVLCompacto.construir(ordenadas));
+        }
+    }
+
+    @Test
+    void unNivelNegativoEstaVacio() {
+        ArbolAVLCompacto compacto = ArbolAVLCompacto.construir(new Carta[] { Carta.desdeIndice(3) });
+        assertEquals(0, compacto.getNivel(-1).length);
+        assertEquals(0, compacto.getNivel(Integer.MIN_VALUE).length);
+        assertEquals(0, new ArbolAVLCompacto().getNivel(-1).length);
+    }
+}
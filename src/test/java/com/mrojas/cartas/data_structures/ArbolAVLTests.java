@@ -0,0 +1,309 @@
+/**
+ * @file ArbolAVLTests.java
+ * @author 202030799 Manuel Rojas
+ * @brief Pruebas del ArbolAVL persistente
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.data_structures;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import com.mrojas.cartas.data_structures.ArbolAVL.Nodo;
+import com.mrojas.cartas.models.Carta;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de ArbolAVL sobre árboles armados al azar con inserciones y eliminaciones, para
+ * que la forma no sea siempre la de un árbol construido de una vez
+ */
+class ArbolAVLTests {
+
+    /**
+     * Método que arma un árbol al azar insertando y eliminando cartas
+     * @param azar El generador de números
+     * @param operaciones La cantidad de inserciones o eliminaciones
+     * @return El árbol
+     */
+    private static ArbolAVL armar(Random azar, int operaciones) {
+        ArbolAVL arbol = new ArbolAVL();
+        for (int i = 0; i < operaciones; i++) {
+            Carta carta = Carta.desdeIndice(azar.nextInt(Carta.TOTAL_CARTAS));
+            if (arbol.contiene(carta)) {
+                arbol.eliminar(carta);
+            } else {
+                arbol.insertar(carta);
+            }
+        }
+        return arbol;
+    }
+
+    @Test
+    void importarReconstruyeElArbolExportado() {
+        Random azar = new Random(22);
+        for (int prueba = 0; prueba < 500; prueba++) {
+            ArbolAVL arbol = armar(azar, azar.nextInt(120));
+            byte[] preOrden = arbol.exportar();
+            ArbolAVL importado = ArbolAVL.importar(preOrden);
+            assertArrayEquals(preOrden, importado.exportar());
+            assertArrayEquals(arbol.preOrder(), importado.preOrder());
+            assertArrayEquals(arbol.inOrder(), importado.inOrder());
+            assertEquals(arbol.getCantidad(), importado.getCantidad());
+            assertEquals(arbol.altura(), importado.altura());
+            assertEquals(arbol.getMascara(), importado.getMascara());
+            assertEquals(arbol.getHojas(), importado.getHojas());
+            assertEquals(arbol.getHuella(), importado.getHuella());
+        }
+    }
+
+    @Test
+    void importarRechazaLoQueNoEsUnPreOrden() {
+        // Un índice fuera de la baraja
+        assertThrows(IllegalArgumentException.class, () -> ArbolAVL.importar(new byte[] { 52 }));
+        assertThrows(IllegalArgumentException.class, () -> ArbolAVL.importar(new byte[] { 10, 5, (byte) 200 }));
+        // Una carta repetida
+        assertThrows(IllegalArgumentException.class, () -> ArbolAVL.importar(new byte[] { 5, 5 }));
+        assertThrows(IllegalArgumentException.class, () -> ArbolAVL.importar(new byte[] { 10, 5, 20, 10 }));
+        // Un pre orden válido de un árbol que no está balanceado
+        assertThrows(IllegalArgumentException.class, () -> ArbolAVL.importar(new byte[] { 0, 1, 2 }));
+    }
+
+    @Test
+    void importarUnPreOrdenVacioDaUnArbolVacio() {
+        // Así se guarda una partida terminada en disco y en la bitácora
+        ArbolAVL arbol = ArbolAVL.importar(new byte[0]);
+        assertEquals(0, arbol.getCantidad());
+        assertEquals(0, arbol.exportar().length);
+    }
+
+    /**
+     * Método que revisa que un subárbol esté ordenado y balanceado y que los datos
+     * guardados en cada nodo correspondan a sus descendientes
+     * @param nodo La raíz del subárbol
+     * @param minimo El índice mínimo permitido, excluido
+     * @param maximo El índice máximo permitido, excluido
+     */
+    private static void revisar(Nodo nodo, int minimo, int maximo) {
+        if (nodo == null) {
+            return;
+        }
+        int indice = nodo.dato.getIndice();
+        assertTrue(minimo < indice && indice < maximo, "el árbol no está ordenado");
+        revisar(nodo.izquierda, minimo, indice);
+        revisar(nodo.derecha, indice, maximo);
+        int izquierda = Nodo.altura(nodo.izquierda);
+        int derecha = Nodo.altura(nodo.derecha);
+        assertTrue(Math.abs(izquierda - derecha) <= 1, "el nodo " + nodo.dato + " no está balanceado");
+        assertEquals(1 + Math.max(izquierda, derecha), nodo.altura);
+        long propio = 1L << indice;
+        long mascaraHijos = (nodo.izquierda == null ? 0 : nodo.izquierda.mascara)
+                | (nodo.derecha == null ? 0 : nodo.derecha.mascara);
+        long hojasHijos = (nodo.izquierda == null ? 0 : nodo.izquierda.hojas)
+                | (nodo.derecha == null ? 0 : nodo.derecha.hojas);
+        assertEquals(propio | mascaraHijos, nodo.mascara);
+        assertEquals(mascaraHijos == 0 ? propio : hojasHijos, nodo.hojas);
+        assertEquals(1 + Nodo.tamano(nodo.izquierda) + Nodo.tamano(nodo.derecha), nodo.tamano);
+    }
+
+    @Test
+    void eliminarHojasQuitaLasDosHojasYDejaElArbolBalanceado() {
+        Random azar = new Random(16);
+        for (int prueba = 0; prueba < 2000; prueba++) {
+            ArbolAVL arbol = armar(azar, 20 + azar.nextInt(100));
+            long hojas = arbol.getHojas();
+            if (Long.bitCount(hojas) < 2) {
+                continue;
+            }
+            Carta primera = hojaAlAzar(azar, hojas);
+            Carta segunda = hojaAlAzar(azar, hojas & ~(1L << primera.getIndice()));
+            long mascara = arbol.getMascara();
+
+            Nodo raiz = ArbolAVL.eliminarHojas(arbol.getRaiz(), primera, segunda);
+            revisar(raiz, -1, Carta.TOTAL_CARTAS);
+            long esperada = mascara & ~(1L << primera.getIndice()) & ~(1L << segunda.getIndice());
+            assertEquals(esperada, raiz == null ? 0 : raiz.mascara);
+
+            // En secuencia la primera eliminación puede convertir a la segunda en padre, si
+            // no lo hace ambas deben dejar las mismas cartas
+            Nodo secuencial = ArbolAVL.eliminarHojas(ArbolAVL.eliminarHojas(arbol.getRaiz(), primera, null), segunda, null);
+            revisar(secuencial, -1, Carta.TOTAL_CARTAS);
+            long quedan = secuencial == null ? 0 : secuencial.mascara;
+            if (quedan != esperada) {
+                assertEquals(esperada | (1L << segunda.getIndice()), quedan);
+            }
+
+            // Con una sola carta es lo mismo que eliminar
+            ArbolAVL una = arbol.instantanea();
+            una.eliminarHojas(primera, null);
+            ArbolAVL eliminada = arbol.instantanea();
+            eliminada.eliminar(primera);
+            assertArrayEquals(eliminada.exportar(), una.exportar());
+        }
+    }
+
+    /**
+     * Método que elige al azar una de las cartas de un índice de presencia
+     * @param azar El generador de números
+     * @param cartas El índice de presencia, no puede estar vacío
+     * @return La carta elegida
+     */
+    private static Carta hojaAlAzar(Random azar, long cartas) {
+        for (int salto = azar.nextInt(Long.bitCount(cartas)); salto > 0; salto--) {
+            cartas &= cartas - 1;
+        }
+        return Carta.desdeIndice(Long.numberOfTrailingZeros(cartas));
+    }
+
+    @Test
+    void consultarHojasCoincideConBuscarCadaCarta() {
+        Random azar = new Random(160);
+        for (int prueba = 0; prueba < 300; prueba++) {
+            ArbolAVL arbol = armar(azar, azar.nextInt(120));
+            for (int consulta = 0; consulta < 50; consulta++) {
+                Carta primera = Carta.desdeIndice(azar.nextInt(Carta.TOTAL_CARTAS));
+                Carta segunda = azar.nextInt(4) == 0 ? null : Carta.desdeIndice(azar.nextInt(Carta.TOTAL_CARTAS));
+                int esperado = describir(arbol.buscar(primera), ArbolAVL.PRESENTE_1);
+                if (segunda != null) {
+                    esperado |= describir(arbol.buscar(segunda), ArbolAVL.PRESENTE_2);
+                }
+                assertEquals(esperado, arbol.consultarHojas(primera, segunda), primera + " " + segunda);
+            }
+        }
+    }
+
+    /**
+     * Método que describe un nodo con los bits de consultarHojas
+     * @param nodo El nodo, null si la carta no está
+     * @param presente El bit de presencia de la carta
+     * @return Los bits de presencia y de hoja
+     */
+    private static int describir(Nodo nodo, int presente) {
+        if (nodo == null) {
+            return 0;
+        }
+        boolean hoja = nodo.izquierda == null && nodo.derecha == null;
+        return hoja ? presente | (presente << 1) : presente;
+    }
+
+    /**
+     * Método recursivo que arma un recorrido de referencia directamente sobre los nodos
+     * @param nodo La raíz del subárbol
+     * @param orden El recorrido a realizar
+     * @param cartas La lista en la que se agregan las cartas
+     */
+    private static void recorrer(Nodo nodo, Recorrido orden, List<Carta> cartas) {
+        if (nodo == null) {
+            return;
+        }
+        if (orden == Recorrido.PRE_ORDER) {
+            cartas.add(nodo.dato);
+        }
+        recorrer(nodo.izquierda, orden, cartas);
+        if (orden == Recorrido.IN_ORDER) {
+            cartas.add(nodo.dato);
+        }
+        recorrer(nodo.derecha, orden, cartas);
+        if (orden == Recorrido.POST_ORDER) {
+            cartas.add(nodo.dato);
+        }
+    }
+
+    @Test
+    void unaPaginaEsUnTramoDelRecorridoCompleto() {
+        Random azar = new Random(17);
+        for (int prueba = 0; prueba < 300; prueba++) {
+            ArbolAVL arbol = armar(azar, azar.nextInt(120));
+            int tamano = arbol.getCantidad();
+            for (Recorrido orden : Recorrido.values()) {
+                List<Carta> completo = new ArrayList<>();
+                recorrer(arbol.getRaiz(), orden, completo);
+                assertEquals(completo, List.of(arbol.recorrer(orden)));
+                int[] inicios = { 0, tamano / 2, tamano, tamano + 5, azar.nextInt(tamano + 1) };
+                int[] cantidades = { 0, 1, 3, tamano, Integer.MAX_VALUE };
+                for (int desde : inicios) {
+                    for (int cantidad : cantidades) {
+                        List<Carta> pagina = new ArrayList<>();
+                        Iterator<Carta> iterador = arbol.iterador(orden, desde, cantidad);
+                        iterador.forEachRemaining(pagina::add);
+                        int fin = (int) Math.min(tamano, (long) desde + cantidad);
+                        List<Carta> esperada = desde >= fin ? List.of() : completo.subList(desde, fin);
+                        assertEquals(esperada, pagina, orden + " desde " + desde + " cantidad " + cantidad);
+                        assertFalse(iterador.hasNext());
+                        assertThrows(NoSuchElementException.class, iterador::next);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void getNivelDaLasCartasDeCadaProfundidad() {
+        Random azar = new Random(8);
+        for (int prueba = 0; prueba < 300; prueba++) {
+            ArbolAVL arbol = armar(azar, azar.nextInt(120));
+            List<List<Carta>> niveles = new ArrayList<>();
+            agregarNiveles(arbol.getRaiz(), 0, niveles);
+            for (int nivel = -1; nivel <= niveles.size() + 1; nivel++) {
+                List<Carta> esperado = nivel >= 0 && nivel < niveles.size() ? niveles.get(nivel) : List.of();
+                assertEquals(esperado, List.of(arbol.getNivel(nivel)), "nivel " + nivel);
+            }
+            Carta[][] todos = arbol.getNiveles();
+            assertEquals(niveles.size(), todos.length);
+            for (int nivel = 0; nivel < todos.length; nivel++) {
+                assertEquals(niveles.get(nivel), List.of(todos[nivel]));
+            }
+        }
+    }
+
+    @Test
+    void modificarUnRecorridoNoCambiaLasConsultasSiguientes() {
+        ArbolAVL arbol = armar(new Random(23), 40);
+        for (Recorrido orden : Recorrido.values()) {
+            List<Carta> esperado = List.of(arbol.recorrer(orden));
+            arbol.recorrer(orden)[0] = null;
+            assertEquals(esperado, List.of(arbol.recorrer(orden)), orden.toString());
+            assertEquals(esperado, arbol.getRecorrido(orden));
+            assertThrows(UnsupportedOperationException.class, () -> arbol.getRecorrido(orden).set(0, null));
+        }
+        List<Carta> enOrden = List.of(arbol.inOrder());
+        arbol.inOrder()[0] = null;
+        assertEquals(enOrden, List.of(arbol.inOrder()));
+        List<Carta> raiz = List.of(arbol.getNivel(0));
+        arbol.getNivel(0)[0] = null;
+        assertEquals(raiz, List.of(arbol.getNivel(0)));
+        arbol.getNiveles()[0][0] = null;
+        assertEquals(raiz, List.of(arbol.getNiveles()[0]));
+        assertEquals(raiz, List.of(arbol.getNivel(0)));
+    }
+
+    /**
+     * Método recursivo que agrupa las cartas por profundidad visitando todos los nodos
+     * @param nodo La raíz del subárbol
+     * @param profundidad La profundidad del nodo
+     * @param niveles Las cartas de cada nivel, de izquierda a derecha
+     */
+    private static void agregarNiveles(Nodo nodo, int profundidad, List<List<Carta>> niveles) {
+        if (nodo == null) {
+            return;
+        }
+        if (niveles.size() == profundidad) {
+            niveles.add(new ArrayList<>());
+        }
+        niveles.get(profundidad).add(nodo.dato);
+        agregarNiveles(nodo.izquierda, profundidad + 1, niveles);
+        agregarNiveles(nodo.derecha, profundidad + 1, niveles);
+    }
+}
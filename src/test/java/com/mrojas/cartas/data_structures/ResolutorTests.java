@@ -0,0 +1,101 @@
+/**
+ * @file ResolutorTests.java
+ * @author 202030799 Manuel Rojas
+ * @brief Pruebas de la búsqueda de soluciones con tablas de transposición pequeñas
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.data_structures;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import com.mrojas.cartas.data_structures.ArbolAVL.Nodo;
+import com.mrojas.cartas.models.Carta;
+import com.mrojas.cartas.models.TipoCarta;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de Resolutor. Con una tabla de pocas casillas los estados sin salida se
+ * reemplazan todo el tiempo, lo que no debe cambiar ningún veredicto.
+ */
+class ResolutorTests {
+    private final ForkJoinPool hilos = new ForkJoinPool(2);
+
+    @AfterEach
+    void detener() {
+        hilos.shutdownNow();
+    }
+
+    /**
+     * Método que arma una baraja al azar con parejas que suman 13 y reyes, insertadas en
+     * desorden para que la forma del árbol varíe
+     * @param azar El generador de números
+     * @param jugadas La cantidad de parejas o reyes
+     * @return La baraja
+     */
+    private static ArbolAVL repartir(Random azar, int jugadas) {
+        List<Carta> cartas = new ArrayList<>();
+        for (int jugada = 0; jugada < jugadas;) {
+            int valor = 1 + azar.nextInt(13);
+            Carta primera = Carta.de(TipoCarta.values()[azar.nextInt(4)], valor);
+            Carta segunda = valor == 13 ? null : Carta.de(TipoCarta.values()[azar.nextInt(4)], 13 - valor);
+            if (!cartas.contains(primera) && (segunda == null || !cartas.contains(segunda))) {
+                cartas.add(primera);
+                if (segunda != null) {
+                    cartas.add(segunda);
+                }
+                jugada++;
+            }
+        }
+        Collections.shuffle(cartas, azar);
+        ArbolAVL baraja = new ArbolAVL();
+        cartas.forEach(baraja::insertar);
+        return baraja;
+    }
+
+    @Test
+    void losVeredictosNoDependenDelTamanoDeLaTabla() {
+        Resolutor pequeno = new Resolutor(2, hilos);
+        Random azar = new Random(20);
+        for (int prueba = 0; prueba < 60; prueba++) {
+            ArbolAVL baraja = repartir(azar, 9);
+            Resolutor.Solucion esperada = new Resolutor(16, hilos).resolver(baraja, Long.MAX_VALUE, 60_000);
+            Resolutor.Solucion obtenida = pequeno.resolver(baraja, Long.MAX_VALUE, 60_000);
+            assertEquals(esperada.getVeredicto(), obtenida.getVeredicto(), Arrays.toString(baraja.exportar()));
+            if (obtenida.getVeredicto() == Resolutor.Veredicto.RESOLUBLE) {
+                vaciar(baraja, obtenida.getJugadas());
+            }
+        }
+    }
+
+    /**
+     * Método que aplica las jugadas de una solución revisando que cada carta sea hoja
+     * @param baraja La baraja
+     * @param jugadas Las jugadas de la solución
+     */
+    private static void vaciar(ArbolAVL baraja, List<Carta[]> jugadas) {
+        Nodo raiz = baraja.getRaiz();
+        for (Carta[] jugada : jugadas) {
+            Carta segunda = jugada.length == 2 ? jugada[1] : null;
+            int total = jugada[0].getValor() + (segunda == null ? 0 : segunda.getValor());
+            assertEquals(13, total);
+            assertTrue((raiz.hojas & (1L << jugada[0].getIndice())) != 0);
+            assertTrue(segunda == null || (raiz.hojas & (1L << segunda.getIndice())) != 0);
+            raiz = ArbolAVL.eliminarHojas(raiz, jugada[0], segunda);
+        }
+        assertNull(raiz);
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ * @file AlmacenPartidasTests.java
+ * @author 202030799 Manuel Rojas
+ * @brief Pruebas del desalojo a disco de AlmacenPartidas
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.mrojas.cartas.data_structures.ArbolAVL;
+import com.mrojas.cartas.models.Carta;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Pruebas de AlmacenPartidas. El desalojo periódico se programa cada minuto para que solo
+ * ocurran los desalojos que hace cada prueba.
+ */
+class AlmacenPartidasTests {
+    @TempDir
+    Path directorio;
+
+    /**
+     * Método que arma una baraja con las cartas de los índices dados
+     * @param indices Los índices de las cartas
+     * @return La baraja
+     */
+    private static ArbolAVL baraja(int... indices) {
+        ArbolAVL baraja = new ArbolAVL();
+        for (int indice : indices) {
+            baraja.insertar(Carta.desdeIndice(indice));
+        }
+        return baraja;
+    }
+
+    @Test
+    void unaPartidaDesalojadaSeCargaIgual() throws Exception {
+        // Sin tiempo de inactividad cualquier revisión desaloja todas las partidas
+        AlmacenPartidas almacen = new AlmacenPartidas(10, 0, directorio.toString(), 60_000, 86_400_000);
+        try {
+            String partida = UUID.randomUUID().toString();
+            ArbolAVL baraja = baraja(30, 10, 45, 2, 17, 51, 0);
+            byte[] preOrden = baraja.exportar();
+            almacen.agregar(partida, new Partida(baraja));
+            almacen.desalojar();
+            assertEquals(0, almacen.getCantidad());
+            Path archivo = directorio.resolve(partida + ".avl");
+            assertTrue(Files.exists(archivo));
+
+            Partida cargada = almacen.buscar(partida);
+            assertArrayEquals(preOrden, cargada.leer(ArbolAVL::exportar));
+            assertFalse(Files.exists(archivo));
+            assertEquals(1, almacen.getCantidad());
+        } finally {
+            almacen.detener();
+        }
+    }
+
+    @Test
+    void unaEscrituraNoSePierdeAlDesalojar() throws Exception {
+        AlmacenPartidas almacen = new AlmacenPartidas(10, 0, directorio.toString(), 60_000, 86_400_000);
+        ExecutorService hilos = Executors.newFixedThreadPool(2);
+        try {
+            String partida = UUID.randomUUID().toString();
+            almacen.agregar(partida, new Partida(new ArbolAVL()));
+            AtomicBoolean terminado = new AtomicBoolean();
+            Future<?> desalojos = hilos.submit(() -> {
+                while (!terminado.get()) {
+                    almacen.desalojar();
+                }
+            });
+            Future<?> escrituras = hilos.submit(() -> {
+                for (int indice = 0; indice < Carta.TOTAL_CARTAS; indice++) {
+                    Carta carta = Carta.desdeIndice(indice);
+                    // Igual que GameService, si la partida se desalojó se busca de nuevo
+                    while (!almacen.buscar(partida).escribir(baraja -> baraja.insertar(carta))) {
+                        Thread.onSpinWait();
+                    }
+                }
+                terminado.set(true);
+            });
+            escrituras.get();
+            desalojos.get();
+            long todas = (1L << Carta.TOTAL_CARTAS) - 1;
+            assertEquals(todas, (long) almacen.buscar(partida).leer(ArbolAVL::getMascara));
+        } finally {
+            hilos.shutdownNow();
+            almacen.detener();
+        }
+    }
+
+    @Test
+    void lasPartidasEnMemoriaQuedanCercaDelMaximo() throws Exception {
+        int maximo = 100;
+        int cantidadHilos = 4;
+        AlmacenPartidas almacen = new AlmacenPartidas(maximo, 1_800_000, directorio.toString(), 60_000, 86_400_000);
+        ExecutorService hilos = Executors.newFixedThreadPool(cantidadHilos);
+        try {
+            List<Future<Integer>> picos = new ArrayList<>();
+            for (int hilo = 0; hilo < cantidadHilos; hilo++) {
+                picos.add(hilos.submit(() -> {
+                    int pico = 0;
+                    for (int i = 0; i < 5000; i++) {
+                        almacen.agregar(UUID.randomUUID().toString(), new Partida(baraja(i % Carta.TOTAL_CARTAS)));
+                        pico = Math.max(pico, almacen.getCantidad());
+                    }
+                    return pico;
+                }));
+            }
+            // Cada hilo revisa el límite después de agregar, por lo que se puede pasar en
+            // a lo sumo una partida por hilo
+            int limite = maximo + maximo / 10 + cantidadHilos;
+            for (Future<Integer> pico : picos) {
+                assertTrue(pico.get() <= limite, "pico de " + pico.get() + " partidas");
+            }
+            assertTrue(almacen.getCantidad() <= limite);
+        } finally {
+            hilos.shutdownNow();
+            almacen.detener();
+        }
+    }
+
+    @Test
+    void lasPartidasDesalojadasCaducan() throws Exception {
+        AlmacenPartidas almacen = new AlmacenPartidas(10, 0, directorio.toString(), 60_000, 60_000);
+        try {
+            String vieja = UUID.randomUUID().toString();
+            String reciente = UUID.randomUUID().toString();
+            String sinBorrar = UUID.randomUUID().toString();
+            almacen.agregar(vieja, new Partida(baraja(1, 2, 3)));
+            almacen.agregar(reciente, new Partida(baraja(4, 5, 6)));
+            almacen.agregar(sinBorrar, new Partida(baraja(7, 8, 9)));
+            almacen.desalojar();
+            // Como si llevaran dos minutos en disco
+            FileTime antes = FileTime.from(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(2), TimeUnit.MILLISECONDS);
+            Files.setLastModifiedTime(directorio.resolve(vieja + ".avl"), antes);
+            Files.setLastModifiedTime(directorio.resolve(sinBorrar + ".avl"), antes);
+
+            // Una partida caducada no se registra al compactar aunque su archivo siga ahí
+            List<String> registradas = new ArrayList<>();
+            almacen.recorrer((partida, preOrden) -> registradas.add(partida));
+            assertEquals(List.of(reciente), registradas);
+
+            almacen.caducar();
+            assertFalse(Files.exists(directorio.resolve(vieja + ".avl")));
+            assertFalse(Files.exists(directorio.resolve(sinBorrar + ".avl")));
+            assertTrue(Files.exists(directorio.resolve(reciente + ".avl")));
+            assertNull(almacen.buscar(vieja));
+            assertArrayEquals(baraja(4, 5, 6).exportar(), almacen.buscar(reciente).leer(ArbolAVL::exportar));
+        } finally {
+            almacen.detener();
+        }
+    }
+
+    @Test
+    void unaPartidaCaducadaNoSeCarga() throws Exception {
+        AlmacenPartidas almacen = new AlmacenPartidas(10, 0, directorio.toString(), 60_000, 60_000);
+        try {
+            String partida = UUID.randomUUID().toString();
+            almacen.agregar(partida, new Partida(baraja(1, 2, 3)));
+            almacen.desalojar();
+            Path archivo = directorio.resolve(partida + ".avl");
+            Files.setLastModifiedTime(archivo,
+                    FileTime.from(System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(2), TimeUnit.MILLISECONDS));
+            // Antes de la revisión periódica, la partida ya no se encuentra
+            assertNull(almacen.buscar(partida));
+            assertFalse(Files.exists(archivo));
+        } finally {
+            almacen.detener();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * @file BitacoraTests.java
+ * @author 202030799 Manuel Rojas
+ * @brief Pruebas de los segmentos y la compactación de la bitácora
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.mrojas.cartas.data_structures.ArbolAVL;
+import com.mrojas.cartas.models.Carta;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Pruebas de Bitacora con segmentos de 64 registros, el mínimo, para que cualquier prueba
+ * pase por varios segmentos
+ */
+class BitacoraTests {
+    private static final long SEGMENTO = 64 * Bitacora.REGISTRO;
+
+    @TempDir
+    Path directorio;
+
+    /**
+     * Método que abre la bitácora del directorio de la prueba sin sincronización periódica
+     * @return La bitácora
+     * @throws IOException Si no se puede abrir
+     */
+    private Bitacora abrir() throws IOException {
+        return new Bitacora(directorio.resolve("cartas.journal").toString(), 60_000, SEGMENTO);
+    }
+
+    /**
+     * Método que cuenta los segmentos en disco
+     * @return La cantidad de segmentos
+     * @throws IOException Si no se puede leer el directorio
+     */
+    private int contarSegmentos() throws IOException {
+        int segmentos = 0;
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, "cartas.journal.*")) {
+            for (Path archivo : archivos) {
+                segmentos++;
+            }
+        }
+        return segmentos;
+    }
+
+    /**
+     * Método que recupera las barajas importadas de una bitácora, igual que GameService
+     * @param bitacora La bitácora
+     * @param otras Las jugadas que no son importaciones, en orden
+     * @return El pre orden de cada partida importada
+     */
+    private static Map<String, byte[]> recuperar(Bitacora bitacora, List<Long> otras) {
+        Map<String, ByteArrayOutputStream> pendientes = new HashMap<>();
+        Map<String, byte[]> importadas = new HashMap<>();
+        bitacora.recuperar((tipo, banderas, partida, cartas) -> {
+            if (tipo != Bitacora.IMPORTACION) {
+                otras.add(cartas);
+                return;
+            }
+            ByteArrayOutputStream preOrden = pendientes.computeIfAbsent(partida, p -> new ByteArrayOutputStream());
+            for (int i = 0; i < Long.BYTES; i++) {
+                byte indice = (byte) (cartas >>> (i * Byte.SIZE));
+                if (indice != Bitacora.RELLENO) {
+                    preOrden.write(indice);
+                }
+            }
+            if ((banderas & Bitacora.CONTINUA) == 0) {
+                importadas.put(partida, pendientes.remove(partida).toByteArray());
+            }
+        });
+        return importadas;
+    }
+
+    @Test
+    void recuperaTodosLosSegmentosEnOrden() throws Exception {
+        String partida = UUID.randomUUID().toString();
+        Bitacora bitacora = abrir();
+        bitacora.recuperar((tipo, banderas, id, cartas) -> { });
+        for (long i = 0; i < 200; i++) {
+            bitacora.registrar(Bitacora.INSERCION, partida, i);
+        }
+        // Un grupo que no cabe en lo que queda del segmento pasa completo al siguiente
+        byte[] tipos = new byte[40];
+        long[] cartas = new long[40];
+        for (int i = 0; i < tipos.length; i++) {
+            tipos[i] = Bitacora.ELIMINACION;
+            cartas[i] = 200 + i;
+        }
+        bitacora.registrar(partida, tipos, cartas);
+        bitacora.cerrar();
+        assertTrue(contarSegmentos() >= 4);
+
+        List<Long> leidas = new ArrayList<>();
+        Bitacora reabierta = abrir();
+        reabierta.recuperar((tipo, banderas, id, valor) -> leidas.add(valor));
+        reabierta.cerrar();
+        assertEquals(240, leidas.size());
+        for (int i = 0; i < leidas.size(); i++) {
+            assertEquals(i, leidas.get(i));
+        }
+    }
+
+    @Test
+    void rechazaUnGrupoMayorQueUnSegmento() throws Exception {
+        Bitacora bitacora = abrir();
+        bitacora.recuperar((tipo, banderas, id, cartas) -> { });
+        String partida = UUID.randomUUID().toString();
+        assertThrows(IllegalArgumentException.class,
+                () -> bitacora.registrar(partida, new byte[65], new long[65]));
+        assertThrows(IllegalArgumentException.class,
+                () -> bitacora.registrar(Bitacora.IMPORTACION, partida, new byte[65 * Long.BYTES]));
+        bitacora.cerrar();
+    }
+
+    @Test
+    void laCompactacionConservaLasPartidasEnMemoriaYDesalojadas() throws Exception {
+        AlmacenPartidas almacen = new AlmacenPartidas(10, 1_800_000,
+                directorio.resolve("sesiones").toString(), 60_000, 86_400_000);
+        Bitacora bitacora = abrir();
+        bitacora.recuperar((tipo, banderas, id, cartas) -> { });
+        Map<String, byte[]> esperadas = new LinkedHashMap<>();
+        for (int juego = 0; juego < 30; juego++) {
+            Carta[] cartas = new Carta[1 + juego % 20];
+            for (int i = 0; i < cartas.length; i++) {
+                cartas[i] = Carta.desdeIndice((juego + i * 3) % Carta.TOTAL_CARTAS);
+            }
+            ArbolAVL baraja = new ArbolAVL();
+            for (Carta carta : cartas) {
+                if (!baraja.contiene(carta)) {
+                    baraja.insertar(carta);
+                }
+            }
+            String partida = UUID.randomUUID().toString();
+            almacen.agregar(partida, new Partida(baraja));
+            bitacora.registrar(Bitacora.IMPORTACION, partida, baraja.exportar());
+            esperadas.put(partida, baraja.exportar());
+        }
+        // Jugadas que la compactación ya no necesita
+        for (long i = 0; i < 300; i++) {
+            bitacora.registrar(Bitacora.INSERCION, esperadas.keySet().iterator().next(), i);
+        }
+        // Más partidas que el máximo, una parte queda en disco
+        almacen.desalojar();
+        assertTrue(almacen.getCantidad() < esperadas.size());
+        int antes = contarSegmentos();
+
+        bitacora.compactarCon(almacen::recorrer);
+        bitacora.compactar();
+        bitacora.cerrar();
+        assertTrue(contarSegmentos() < antes);
+
+        Bitacora reabierta = abrir();
+        List<Long> otras = new ArrayList<>();
+        Map<String, byte[]> recuperadas = recuperar(reabierta, otras);
+        reabierta.cerrar();
+        almacen.detener();
+        assertTrue(otras.isEmpty());
+        assertEquals(esperadas.keySet(), recuperadas.keySet());
+        for (Map.Entry<String, byte[]> esperada : esperadas.entrySet()) {
+            assertArrayEquals(esperada.getValue(), recuperadas.get(esperada.getKey()));
+        }
+    }
+
+    @Test
+    void lasJugadasPosterioresALaCompactacionSeRecuperan() throws Exception {
+        String partida = UUID.randomUUID().toString();
+        Map<String, byte[]> barajas = new HashMap<>();
+        barajas.put(partida, new byte[] {13});
+        Bitacora bitacora = abrir();
+        bitacora.recuperar((tipo, banderas, id, cartas) -> { });
+        // Menos de un segmento, así la única compactación es la que se pide
+        for (long i = 0; i < 50; i++) {
+            bitacora.registrar(Bitacora.INSERCION, partida, i);
+        }
+        bitacora.compactarCon(destino -> barajas.forEach(destino));
+        bitacora.compactar();
+        bitacora.registrar(Bitacora.ELIMINACION, partida, 1000L);
+        bitacora.cerrar();
+
+        Bitacora reabierta = abrir();
+        List<Long> otras = new ArrayList<>();
+        Map<String, byte[]> recuperadas = recuperar(reabierta, otras);
+        reabierta.cerrar();
+        assertArrayEquals(new byte[] {13}, recuperadas.get(partida));
+        assertEquals(List.of(1000L), otras);
+        assertEquals(1, contarSegmentos());
+    }
+}
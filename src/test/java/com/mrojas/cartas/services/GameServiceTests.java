@@ -0,0 +1,208 @@
+/**
+ * @file GameServiceTests.java
+ * @author 202030799 Manuel Rojas
+ * @brief Pruebas de GameService sin servidor
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import com.mrojas.cartas.data_structures.ArbolAVL;
+import com.mrojas.cartas.models.Carta;
+import com.mrojas.cartas.models.TipoCarta;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Pruebas de GameService armado a mano con un almacén en un directorio temporal y sin
+ * bitácora
+ */
+class GameServiceTests {
+    private final GameService servicio = new GameService();
+
+    @TempDir
+    Path directorio;
+
+    @BeforeEach
+    void preparar() throws Exception {
+        servicio.partidas = new AlmacenPartidas(100, 1_800_000, directorio.toString(), 60_000, 86_400_000);
+        servicio.render = new RenderService();
+    }
+
+    @AfterEach
+    void detener() throws Exception {
+        servicio.detener();
+        servicio.render.detener();
+        servicio.partidas.detener();
+    }
+
+    @Test
+    void importaLaBarajaExportada() {
+        byte[] preOrden = { 20, 10, 5, 30 };
+        String partida = servicio.importGame(preOrden);
+        assertArrayEquals(preOrden, servicio.exportGame(partida));
+    }
+
+    @Test
+    void rechazaImportarUnaBarajaVacia() {
+        assertThrows(IllegalArgumentException.class, () -> servicio.importGame(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> servicio.importGame(new byte[] { 5, 5 }));
+    }
+
+    @Test
+    void lasJugadasCoincidenConRevisarCadaPareja() {
+        Random azar = new Random(19);
+        for (int prueba = 0; prueba < 100; prueba++) {
+            ArbolAVL baraja = new ArbolAVL();
+            for (int indice = 0; indice < Carta.TOTAL_CARTAS; indice++) {
+                if (azar.nextInt(3) > 0) {
+                    baraja.insertar(Carta.desdeIndice(indice));
+                }
+            }
+            String partida = servicio.importGame(baraja.exportar());
+            while (true) {
+                List<List<Carta>> esperadas = new ArrayList<>();
+                List<Carta> hojas = new ArrayList<>();
+                for (int indice = 0; indice < Carta.TOTAL_CARTAS; indice++) {
+                    Carta carta = Carta.desdeIndice(indice);
+                    if (servicio.containsCard(partida, carta) && !servicio.isParentCard(partida, carta)) {
+                        hojas.add(carta);
+                    }
+                }
+                Set<List<Carta>> solas = new LinkedHashSet<>();
+                Set<List<Carta>> pares = new LinkedHashSet<>();
+                for (int i = 0; i < hojas.size(); i++) {
+                    if (hojas.get(i).getValor() == 13) {
+                        solas.add(List.of(hojas.get(i)));
+                    }
+                    for (int j = 0; j < hojas.size(); j++) {
+                        if (hojas.get(i).getValor() < hojas.get(j).getValor()
+                                && hojas.get(i).getValor() + hojas.get(j).getValor() == 13) {
+                            pares.add(List.of(hojas.get(i), hojas.get(j)));
+                        }
+                    }
+                }
+                esperadas.addAll(solas);
+                esperadas.addAll(pares);
+
+                Map<String, List<List<Carta>>> jugadas = servicio.getMoves(partida);
+                assertEquals(solas.size(), jugadas.get("singles").size());
+                assertEquals(solas, new HashSet<>(jugadas.get("singles")));
+                assertEquals(pares.size(), jugadas.get("pairs").size());
+                assertEquals(pares, new HashSet<>(jugadas.get("pairs")));
+                if (esperadas.isEmpty()) {
+                    break;
+                }
+                // Se juega una de las jugadas para revisar también las barajas siguientes
+                List<Carta> jugada = esperadas.get(azar.nextInt(esperadas.size()));
+                servicio.deleteCards(partida, jugada.get(0), jugada.size() == 2 ? jugada.get(1) : null);
+            }
+        }
+    }
+
+    /**
+     * Método con el reconocimiento de cartas original, que comparaba el nombre completo
+     * con cada valor en lugar de usar tablas
+     * @param texto El texto que representa la carta
+     * @return La carta, null si el texto no es válido
+     */
+    private static Carta crearCartaOriginal(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return null;
+        }
+        boolean valida = true;
+        TipoCarta tipo = null;
+        String nombre = "";
+        int valor = 0;
+        switch (texto.charAt(texto.length() - 1)) {
+            case '\u2663' -> tipo = TipoCarta.TREBOL;
+            case '\u2666' -> tipo = TipoCarta.DIAMANTE;
+            case '\u2665' -> tipo = TipoCarta.CORAZON;
+            case '\u2660' -> tipo = TipoCarta.PICA;
+            default -> valida = false;
+        }
+        switch (texto.length()) {
+            case 2 -> nombre += Character.toString(texto.charAt(0));
+            case 3 -> nombre += Character.toString(texto.charAt(0)) + Character.toString(texto.charAt(1));
+            default -> valida = false;
+        }
+        switch (nombre) {
+            case "A" -> valor = 1;
+            case "2" -> valor = 2;
+            case "3" -> valor = 3;
+            case "4" -> valor = 4;
+            case "5" -> valor = 5;
+            case "6" -> valor = 6;
+            case "7" -> valor = 7;
+            case "8" -> valor = 8;
+            case "9" -> valor = 9;
+            case "10" -> valor = 10;
+            case "J" -> valor = 11;
+            case "Q" -> valor = 12;
+            case "K" -> valor = 13;
+            default -> valida = false;
+        }
+        return valida ? Carta.de(tipo, valor) : null;
+    }
+
+    @Test
+    void crearCartaReconoceLasCincuentaYDosCartas() {
+        for (int indice = 0; indice < Carta.TOTAL_CARTAS; indice++) {
+            Carta carta = Carta.desdeIndice(indice);
+            String texto = carta.toString();
+            assertSame(carta, servicio.crearCarta(texto), texto);
+            assertSame(crearCartaOriginal(texto), servicio.crearCarta(texto), texto);
+        }
+    }
+
+    @Test
+    void crearCartaCoincideConElReconocimientoOriginal() {
+        // Todos los textos de hasta tres caracteres con caracteres de cartas y otros cercanos
+        String caracteres = "A23456789JQK01TXak \u2660\u2661\u2662\u2663\u2664\u2665\u2666\u2667";
+        List<String> textos = new ArrayList<>(List.of("", "10", "1\u2660", "100\u2660", "\u2660A", "10\u2660 "));
+        for (int largo = 1; largo <= 3; largo++) {
+            agregarTextos("", largo, caracteres, textos);
+        }
+        for (String texto : textos) {
+            assertSame(crearCartaOriginal(texto), servicio.crearCarta(texto), "\"" + texto + "\"");
+        }
+        assertNull(servicio.crearCarta(null));
+    }
+
+    /**
+     * Método recursivo que agrega todos los textos de un largo con ciertos caracteres
+     * @param prefijo El inicio del texto
+     * @param largo La cantidad de caracteres que faltan
+     * @param caracteres Los caracteres permitidos
+     * @param textos La lista en la que se agregan los textos
+     */
+    private static void agregarTextos(String prefijo, int largo, String caracteres, List<String> textos) {
+        if (largo == 0) {
+            textos.add(prefijo);
+            return;
+        }
+        for (int i = 0; i < caracteres.length(); i++) {
+            agregarTextos(prefijo + caracteres.charAt(i), largo - 1, caracteres, textos);
+        }
+    }
+}
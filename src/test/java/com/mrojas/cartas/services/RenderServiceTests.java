@@ -0,0 +1,104 @@
+/**
+ * @file RenderServiceTests.java
+ * @author 202030799 Manuel Rojas
+ * @brief Pruebas de las claves y la caché de imágenes de RenderService
+ * @version 0.1
+ * @date 2026-10-18
+ *
+ *
+ */
+package com.mrojas.cartas.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.mrojas.cartas.data_structures.ArbolAVL;
+import com.mrojas.cartas.errors.ImageNotFoundException;
+import com.mrojas.cartas.models.Carta;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Pruebas de RenderService, una clave contiene el árbol completo por lo que la imagen se
+ * puede volver a dibujar aunque no esté en la caché
+ */
+class RenderServiceTests {
+    private final RenderService render = new RenderService();
+
+    @AfterEach
+    void detener() {
+        render.detener();
+    }
+
+    /**
+     * Método que arma un árbol con las cartas de los índices dados
+     * @param indices Los índices de las cartas en orden
+     * @return El árbol
+     */
+    private static ArbolAVL baraja(int... indices) {
+        Carta[] cartas = new Carta[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            cartas[i] = Carta.desdeIndice(indices[i]);
+        }
+        return ArbolAVL.construir(cartas);
+    }
+
+    @Test
+    void dibujaDeNuevoUnaClaveQueNoEstaEnLaCache() {
+        ArbolAVL baraja = baraja(0, 5, 13, 27, 40, 51);
+        String clave = render.solicitar(baraja);
+        byte[] imagen = render.getImagen(clave);
+
+        RenderService otro = new RenderService();
+        try {
+            assertArrayEquals(imagen, otro.getImagen(clave));
+        } finally {
+            otro.detener();
+        }
+    }
+
+    @Test
+    void arbolesDistintosTienenClavesDistintas() {
+        String primera = RenderService.getClave(baraja(1, 2, 3));
+        String segunda = RenderService.getClave(baraja(1, 2, 4));
+        assertNotEquals(primera, segunda);
+        assertTrue(primera.startsWith(String.format("%016x", baraja(1, 2, 3).getHuella())));
+    }
+
+    @Test
+    void rechazaClavesQueNoCorrespondenAUnArbol() {
+        String clave = RenderService.getClave(baraja(1, 2, 3));
+        // La misma huella con otro pre orden, como en un choque de huellas
+        String cambiada = clave.substring(0, clave.length() - 2) + "04";
+        assertThrows(ImageNotFoundException.class, () -> render.getImagen(cambiada));
+        assertThrows(ImageNotFoundException.class, () -> render.getImagen("no-es-una-clave"));
+        assertThrows(ImageNotFoundException.class, () -> render.getImagen(clave + "3"));
+        assertThrows(ImageNotFoundException.class, () -> render.getImagen(clave + "ff"));
+    }
+
+    @Test
+    void laClaveLlevaLaHuellaYElPreOrdenEnHexadecimal() {
+        ArbolAVL arbol = baraja(0, 5, 13, 27, 40, 51);
+        StringBuilder preOrden = new StringBuilder();
+        for (byte indice : arbol.exportar()) {
+            preOrden.append(String.format("%02x", indice));
+        }
+        String clave = RenderService.getClave(arbol);
+        assertEquals(16 + 16 + preOrden.length(), clave.length());
+        assertTrue(clave.startsWith(String.format("%016x", arbol.getHuella())));
+        assertTrue(clave.endsWith(preOrden.toString()));
+    }
+
+    @Test
+    void rechazaClavesQueEsteProcesoNoEntrego() {
+        String clave = RenderService.getClave(baraja(1, 2, 3));
+        // Un árbol válido con su huella y pre orden correctos pero sin la firma del proceso
+        String ajena = clave.substring(0, 16) + "0123456789abcdef" + clave.substring(32);
+        assertNotEquals(clave, ajena);
+        assertThrows(ImageNotFoundException.class, () -> render.getImagen(ajena));
+    }
+}